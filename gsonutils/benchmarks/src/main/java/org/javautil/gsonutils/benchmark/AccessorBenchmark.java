@@ -0,0 +1,69 @@
+package org.javautil.gsonutils.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.javautil.gsonutils.AccessorTypeAdapterFactory;
+import org.javautil.gsonutils.MapperRegistry;
+import org.javautil.gsonutils.benchmark.Payloads.Batch;
+import org.javautil.gsonutils.benchmark.Payloads.Size;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+
+/**
+ * Gson's reflective adapter against {@link AccessorTypeAdapterFactory}, each
+ * on a mapper from its own registry.
+ *
+ * @author jjs
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class AccessorBenchmark {
+	@Param({ "SMALL", "MEDIUM", "LARGE" })
+	public Size size;
+
+	@Param({ "reflective", "accessor" })
+	public String adapter;
+
+	private Gson gson;
+
+	private Batch batch;
+
+	private String json;
+
+	@Setup
+	public void setup() {
+		final var registry = new MapperRegistry();
+		if ("accessor".equals(adapter)) {
+			registry.registerTypeAdapterFactory(new AccessorTypeAdapterFactory());
+		}
+		gson = registry.get();
+		batch = Payloads.batch(size);
+		json = gson.toJson(batch);
+	}
+
+	@Benchmark
+	public String toJson() {
+		return gson.toJson(batch);
+	}
+
+	@Benchmark
+	public Batch fromJson() {
+		return gson.fromJson(json, Batch.class);
+	}
+}
@@ -0,0 +1,31 @@
+package org.javautil.gsonutils.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Runs the JMH command line, writing the results as JSON to
+ * target/jmh-result.json unless -rf or -rff is given so runs can be compared.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar -prof gc
+ * java -jar target/benchmarks.jar GsonUtilsBenchmark.toJson -p size=LARGE -rff before.json
+ * </pre>
+ *
+ * @author jjs
+ *
+ */
+public class BenchmarkMain {
+	public static void main(String[] args) throws Exception {
+		final var arguments = new ArrayList<>(Arrays.asList(args));
+		if (!arguments.contains("-rf")) {
+			arguments.add("-rf");
+			arguments.add("json");
+		}
+		if (!arguments.contains("-rff")) {
+			arguments.add("-rff");
+			arguments.add("target/jmh-result.json");
+		}
+		org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+	}
+}
@@ -0,0 +1,72 @@
+package org.javautil.gsonutils.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.javautil.gsonutils.GsonUtils;
+import org.javautil.gsonutils.benchmark.Payloads.Batch;
+import org.javautil.gsonutils.benchmark.Payloads.Size;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * UTF-8 JSON against CBOR through the same mapper and adapters. Running the
+ * class prints the size of each encoding instead.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar org.javautil.gsonutils.benchmark.CborBenchmark
+ * </pre>
+ *
+ * @author jjs
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class CborBenchmark {
+	@Param({ "SMALL", "MEDIUM", "LARGE" })
+	public Size size;
+
+	@Param({ "json", "cbor" })
+	public String encoding;
+
+	private Batch batch;
+
+	private byte[] bytes;
+
+	@Setup
+	public void setup() {
+		batch = Payloads.batch(size);
+		bytes = write();
+	}
+
+	@Benchmark
+	public byte[] write() {
+		return "cbor".equals(encoding) ? GsonUtils.toCbor(batch) : GsonUtils.toJsonBytes(batch);
+	}
+
+	@Benchmark
+	public Batch read() {
+		return "cbor".equals(encoding) ? GsonUtils.toBeanFromCbor(bytes, Batch.class)
+				: GsonUtils.toBeanFromJson(bytes, Batch.class);
+	}
+
+	public static void main(String[] args) {
+		for (final var size : Size.values()) {
+			final var batch = Payloads.batch(size);
+			System.out.printf("%-6s json %,10d bytes cbor %,10d bytes%n", size, GsonUtils.toJsonBytes(batch).length,
+					GsonUtils.toCbor(batch).length);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package org.javautil.gsonutils.benchmark;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.javautil.gsonutils.GsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+
+/**
+ * ISO text against epoch seconds for Instant, LocalDateTime and Timestamp, on
+ * events that are nothing but times. Running the class prints the size of each
+ * encoding instead.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar org.javautil.gsonutils.benchmark.EpochBenchmark
+ * </pre>
+ *
+ * @author jjs
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class EpochBenchmark {
+	public static class Event {
+		Instant at;
+		LocalDateTime local;
+		Timestamp stamp;
+	}
+
+	public static class Events {
+		List<Event> events;
+	}
+
+	@Param({ "iso", "epoch" })
+	public String encoding;
+
+	private Gson gson;
+
+	private Events events;
+
+	private String json;
+
+	static Events events(int count) {
+		final var events = new Events();
+		events.events = new ArrayList<>(count);
+		final var start = Instant.parse("2022-04-15T10:15:30.123456789Z");
+		for (int i = 0; i < count; i++) {
+			final var event = new Event();
+			event.at = start.plusSeconds(i * 37L).plusNanos(i * 1_001L);
+			event.local = LocalDateTime.ofInstant(event.at.plusMillis(i), ZoneOffset.UTC);
+			event.stamp = Timestamp.from(event.at.plusNanos(i));
+			events.events.add(event);
+		}
+		return events;
+	}
+
+	@Setup
+	public void setup() {
+		gson = "epoch".equals(encoding) ? GsonUtils.epochMapper() : GsonUtils.mapper();
+		events = events(1000);
+		json = gson.toJson(events);
+	}
+
+	@Benchmark
+	public String toJson() {
+		return gson.toJson(events);
+	}
+
+	@Benchmark
+	public Events fromJson() {
+		return gson.fromJson(json, Events.class);
+	}
+
+	public static void main(String[] args) {
+		final var events = events(1000);
+		System.out.printf("iso   %,9d chars%n", GsonUtils.mapper().toJson(events).length());
+		System.out.printf("epoch %,9d chars%n", GsonUtils.epochMapper().toJson(events).length());
+	}
+}
@@ -0,0 +1,85 @@
+package org.javautil.gsonutils.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.javautil.gsonutils.GsonUtils;
+import org.javautil.gsonutils.benchmark.Payloads.Batch;
+import org.javautil.gsonutils.benchmark.Payloads.Size;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of each GsonUtils conversion path, run with -prof gc for the
+ * allocation rate.
+ *
+ * @author jjs
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class GsonUtilsBenchmark {
+	@Param({ "SMALL", "MEDIUM", "LARGE" })
+	public Size size;
+
+	private Batch batch;
+
+	private String json;
+
+	private String yaml;
+
+	@Setup
+	public void setup() {
+		batch = Payloads.batch(size);
+		json = GsonUtils.toJson(batch);
+		yaml = GsonUtils.toYaml(batch);
+	}
+
+	@Benchmark
+	public String toJson() {
+		return GsonUtils.toJson(batch);
+	}
+
+	@Benchmark
+	public String toPrettyJson() {
+		return GsonUtils.toPrettyJson(batch);
+	}
+
+	@Benchmark
+	public String toJsonCompact() {
+		return GsonUtils.toJsonCompact(batch);
+	}
+
+	@Benchmark
+	public Map<String, Object> toMapFromBean() {
+		return GsonUtils.toMapFromBean(batch);
+	}
+
+	@Benchmark
+	public Batch toBeanFromJson() {
+		return GsonUtils.toBeanFromJson(json, Batch.class);
+	}
+
+	@Benchmark
+	public String jsonToPrettyJson() {
+		return GsonUtils.jsonToPrettyJson(json);
+	}
+
+	@Benchmark
+	public String yamlToJson() {
+		return GsonUtils.yamlToJson(yaml);
+	}
+}
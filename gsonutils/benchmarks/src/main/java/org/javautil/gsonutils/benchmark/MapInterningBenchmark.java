@@ -0,0 +1,108 @@
+package org.javautil.gsonutils.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.javautil.gsonutils.GsonUtils;
+import org.javautil.gsonutils.StringInterner;
+import org.javautil.gsonutils.benchmark.Payloads.Batch;
+import org.javautil.gsonutils.benchmark.Payloads.Size;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of building maps with and without a {@link StringInterner} on the
+ * LARGE payload. Running the class prints the heap retained by the maps of
+ * each mode instead.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar org.javautil.gsonutils.benchmark.MapInterningBenchmark
+ * </pre>
+ *
+ * @author jjs
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class MapInterningBenchmark {
+	/** interns keys and values up to the length of the quantities and rates */
+	static final int MAX_VALUE_LENGTH = 8;
+
+	private Batch batch;
+
+	private String json;
+
+	private StringInterner interner;
+
+	@Setup
+	public void setup() {
+		batch = Payloads.batch(Size.LARGE);
+		json = GsonUtils.toJson(batch);
+		interner = new StringInterner(StringInterner.DEFAULT_CAPACITY, MAX_VALUE_LENGTH);
+	}
+
+	@Benchmark
+	public Map<String, Object> toMapFromJson() {
+		return GsonUtils.toMapFromJson(json);
+	}
+
+	@Benchmark
+	public Map<String, Object> toMapFromJsonInterned() {
+		return GsonUtils.toMapFromJson(json, interner);
+	}
+
+	@Benchmark
+	public Map<String, Object> toMapFromBean() {
+		return GsonUtils.toMapFromBean(batch);
+	}
+
+	@Benchmark
+	public Map<String, Object> toMapFromBeanInterned() {
+		return GsonUtils.toMapFromBean(batch, interner);
+	}
+
+	public static void main(String[] args) {
+		final var benchmark = new MapInterningBenchmark();
+		benchmark.setup();
+		report("toMapFromJson", benchmark::toMapFromJson);
+		report("toMapFromJson interned", benchmark::toMapFromJsonInterned);
+		report("toMapFromBean", benchmark::toMapFromBean);
+		report("toMapFromBean interned", benchmark::toMapFromBeanInterned);
+	}
+
+	/**
+	 * Prints the heap held by ten maps of the payload, measured after a gc
+	 */
+	private static void report(String name, Supplier<Map<String, Object>> conversion) {
+		final var retained = new ArrayList<Map<String, Object>>();
+		final var before = usedHeap();
+		for (int i = 0; i < 10; i++) {
+			retained.add(conversion.get());
+		}
+		final var after = usedHeap();
+		System.out.printf("%-24s %,12d bytes retained by %d maps%n", name, after - before, retained.size());
+	}
+
+	private static long usedHeap() {
+		final var memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 3; i++) {
+			memory.gc();
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
@@ -0,0 +1,106 @@
+package org.javautil.gsonutils.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Beans used by the benchmarks, heavy in java.time and BigDecimal fields as
+ * that is where the registered adapters do their work.
+ *
+ * @author jjs
+ *
+ */
+public final class Payloads {
+	/**
+	 * Payload sizes, orders times lines per order
+	 */
+	public enum Size {
+		SMALL(1, 3), MEDIUM(20, 10), LARGE(1000, 10);
+
+		final int orders;
+
+		final int lines;
+
+		Size(int orders, int lines) {
+			this.orders = orders;
+			this.lines = lines;
+		}
+	}
+
+	public static class Batch {
+		String batchId;
+		OffsetDateTime created;
+		List<Order> orders;
+	}
+
+	public static class Order {
+		String orderId;
+		Instant received;
+		LocalDate due;
+		LocalDateTime updated;
+		ZonedDateTime promised;
+		BigDecimal total;
+		BigDecimal taxRate;
+		List<Line> lines;
+	}
+
+	public static class Line {
+		int lineNumber;
+		String sku;
+		BigDecimal quantity;
+		BigDecimal unitPrice;
+		LocalTime cutoff;
+	}
+
+	private static final Instant EPOCH = Instant.parse("2022-04-15T10:15:30.123456789Z");
+
+	private static final ZoneId ZONE = ZoneId.of("America/Chicago");
+
+	private Payloads() {
+	}
+
+	/**
+	 * @param size the number of orders and lines
+	 * @return a deterministic batch
+	 */
+	public static Batch batch(Size size) {
+		final var batch = new Batch();
+		batch.batchId = "batch-" + size;
+		batch.created = OffsetDateTime.ofInstant(EPOCH, ZoneOffset.ofHours(-5));
+		batch.orders = new ArrayList<>(size.orders);
+		for (int o = 0; o < size.orders; o++) {
+			final var order = new Order();
+			final var received = EPOCH.plusSeconds(o * 37L).plusNanos(o * 1_001L);
+			order.orderId = "order-" + o;
+			order.received = received;
+			order.due = LocalDate.ofInstant(received, ZONE).plusDays(o % 30);
+			order.updated = LocalDateTime.ofInstant(received.plusMillis(o), ZONE);
+			order.promised = ZonedDateTime.ofInstant(received, ZONE).plusDays(3);
+			order.taxRate = new BigDecimal("0.0825");
+			order.lines = new ArrayList<>(size.lines);
+			var total = BigDecimal.ZERO;
+			for (int l = 0; l < size.lines; l++) {
+				final var line = new Line();
+				line.lineNumber = l + 1;
+				line.sku = "SKU-" + (o * 31 + l) % 9973;
+				line.quantity = BigDecimal.valueOf(l % 7 + 1);
+				line.unitPrice = BigDecimal.valueOf(1999L + 13L * l + o, 2);
+				line.cutoff = LocalTime.of(l % 24, (l * 7) % 60, 0, l * 1_000_000);
+				total = total.add(line.quantity.multiply(line.unitPrice));
+				order.lines.add(line);
+			}
+			order.total = total;
+			batch.orders.add(order);
+		}
+		return batch;
+	}
+}
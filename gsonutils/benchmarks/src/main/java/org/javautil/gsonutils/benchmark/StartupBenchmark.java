@@ -0,0 +1,47 @@
+package org.javautil.gsonutils.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.javautil.gsonutils.GsonUtils;
+import org.javautil.gsonutils.benchmark.Payloads.Batch;
+import org.javautil.gsonutils.benchmark.Payloads.Size;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to the first toJson in a fresh JVM, including loading and initializing
+ * GsonUtils and creating the mapper. Each fork measures one cold call.
+ *
+ * Pass -jvmArgsAppend -XX:SharedArchiveFile=gsonutils.jsa to measure with an
+ * AppCDS archive created by {@link StartupMain}.
+ *
+ * @author jjs
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+	private Batch batch;
+
+	@Setup
+	public void setup() {
+		batch = Payloads.batch(Size.SMALL);
+	}
+
+	@Benchmark
+	public String firstToJson() {
+		return GsonUtils.toJson(batch);
+	}
+}
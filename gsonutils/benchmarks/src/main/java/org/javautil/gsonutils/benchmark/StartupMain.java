@@ -0,0 +1,26 @@
+package org.javautil.gsonutils.benchmark;
+
+import org.javautil.gsonutils.GsonUtils;
+import org.javautil.gsonutils.benchmark.Payloads.Size;
+
+/**
+ * Prints the time of the first toJson, for comparing runs with and without an
+ * AppCDS archive.
+ *
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=gsonutils.jsa -cp target/benchmarks.jar org.javautil.gsonutils.benchmark.StartupMain
+ * java -XX:SharedArchiveFile=gsonutils.jsa -cp target/benchmarks.jar org.javautil.gsonutils.benchmark.StartupMain
+ * </pre>
+ *
+ * @author jjs
+ *
+ */
+public class StartupMain {
+	public static void main(String[] args) {
+		final var batch = Payloads.batch(Size.SMALL);
+		final var start = System.nanoTime();
+		final var json = GsonUtils.toJson(batch);
+		final var elapsed = System.nanoTime() - start;
+		System.out.printf("first toJson %.3f ms, %d chars%n", elapsed / 1e6, json.length());
+	}
+}
@@ -0,0 +1,561 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.InstanceCreator;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.internal.$Gson$Types;
+import com.google.gson.internal.Excluder;
+import com.google.gson.internal.bind.ReflectiveTypeAdapterFactory;
+import com.google.gson.internal.bind.TypeAdapters;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Serializes beans through MethodHandle accessors instead of Gson's reflective
+ * adapter, opt in by registering it:
+ *
+ * <pre>
+ * GsonUtils.registry.registerTypeAdapterFactory(new AccessorTypeAdapterFactory());
+ * </pre>
+ *
+ * It only replaces the adapter Gson would otherwise create reflectively, so
+ * built in and registered adapters keep precedence. The output is the same:
+ * fields are found and named by the mapper's field naming strategy and
+ * excluded as by Gson's default exclusions, those of the mappers of a
+ * {@link MapperRegistry}, so {@link SerializedName} with its alternates,
+ * transient and static fields behave as with Gson, and nulls follow the
+ * mapper's setting. Do not register it with a mapper built with exclusion
+ * strategies or {@code @Expose}.
+ *
+ * int, long, boolean and String fields are read and written without boxing or
+ * an adapter lookup, and the runtime type of other fields is resolved without
+ * allocating a wrapper per value.
+ *
+ * Classes without a no-argument constructor or an InstanceCreator given to the
+ * factory, classes with a {@link JsonAdapter}
+ * field and classes whose fields cannot be made accessible are left to Gson.
+ * Records are left to the record adapter every mapper registers. The factory
+ * cannot see the InstanceCreators registered with the mapper, pass them to it
+ * as well:
+ *
+ * <pre>
+ * var creators = Map.&lt;Type, InstanceCreator&lt;?&gt;&gt;of(Order.class, type -&gt; new Order(clock));
+ * creators.forEach(GsonUtils.registry::registerTypeAdapter);
+ * GsonUtils.registry.registerTypeAdapterFactory(new AccessorTypeAdapterFactory(creators));
+ * </pre>
+ *
+ * The accessors of each class are created once and shared by every mapper.
+ *
+ * @author jjs
+ *
+ */
+public class AccessorTypeAdapterFactory implements TypeAdapterFactory {
+	private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+
+	private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/**
+	 * The constructor and field accessors of a class, null members if the class
+	 * cannot be handled
+	 */
+	private static final class Accessors {
+		final MethodHandle constructor;
+
+		final Map<Field, MethodHandle[]> fields;
+
+		Accessors(MethodHandle constructor, Map<Field, MethodHandle[]> fields) {
+			this.constructor = constructor;
+			this.fields = fields;
+		}
+	}
+
+	private static final ClassValue<Accessors> accessors = new ClassValue<>() {
+		@Override
+		protected Accessors computeValue(Class<?> type) {
+			return createAccessors(type);
+		}
+	};
+
+	private final Excluder excluder;
+
+	private final Map<Type, InstanceCreator<?>> instanceCreators;
+
+	/**
+	 * For mappers without InstanceCreators
+	 */
+	public AccessorTypeAdapterFactory() {
+		this(Map.of());
+	}
+
+	/**
+	 * @param instanceCreators the InstanceCreators registered with the mappers,
+	 *                         looked up by type and then by class as Gson does
+	 */
+	public AccessorTypeAdapterFactory(Map<Type, InstanceCreator<?>> instanceCreators) {
+		this(Excluder.DEFAULT, instanceCreators);
+	}
+
+	/**
+	 * @param excluder the exclusions of the mappers the factory is registered
+	 *                 with
+	 */
+	AccessorTypeAdapterFactory(Excluder excluder, Map<Type, InstanceCreator<?>> instanceCreators) {
+		this.excluder = excluder;
+		this.instanceCreators = Map.copyOf(instanceCreators);
+	}
+
+	@Override
+	public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+		final var raw = type.getRawType();
+		if (raw.isRecord() || raw.isInterface() || Modifier.isAbstract(raw.getModifiers())) {
+			return null;
+		}
+		if (!(gson.getDelegateAdapter(this, type) instanceof ReflectiveTypeAdapterFactory.Adapter)) {
+			return null;
+		}
+		final var classAccessors = accessors.get(raw);
+		var creator = instanceCreators.get(type.getType());
+		if (creator == null) {
+			creator = instanceCreators.get(raw);
+		}
+		if (classAccessors.constructor == null && creator == null) {
+			return null;
+		}
+		final var boundFields = new LinkedHashMap<String, BoundField>();
+		TypeToken<?> current = type;
+		Class<?> currentRaw = raw;
+		while (currentRaw != Object.class) {
+			for (final var field : currentRaw.getDeclaredFields()) {
+				final var serialize = !excludeField(field, true);
+				final var deserialize = !excludeField(field, false);
+				if (!serialize && !deserialize) {
+					continue;
+				}
+				final var handles = accessors.get(currentRaw).fields.get(field);
+				if (handles == null || field.isAnnotationPresent(JsonAdapter.class)) {
+					return null;
+				}
+				final var fieldType = $Gson$Types.resolve(current.getType(), currentRaw, field.getGenericType());
+				final var names = fieldNames(gson, field);
+				BoundField previous = null;
+				for (int i = 0; i < names.size(); i++) {
+					final var bound = bind(gson, names.get(i), fieldType, handles, serialize && i == 0, deserialize);
+					final var replaced = boundFields.put(names.get(i), bound);
+					if (previous == null) {
+						previous = replaced;
+					}
+				}
+				if (previous != null) {
+					throw new IllegalArgumentException(
+							type.getType() + " declares multiple JSON fields named " + previous.name);
+				}
+			}
+			current = TypeToken.get($Gson$Types.resolve(current.getType(), currentRaw, currentRaw.getGenericSuperclass()));
+			currentRaw = current.getRawType();
+		}
+		return new Adapter<>(type.getType(), creator, classAccessors.constructor,
+				boundFields.values().toArray(new BoundField[0]), boundFields);
+	}
+
+	/**
+	 * As ReflectiveTypeAdapterFactory.excludeField, the declared class of the
+	 * field is checked as well
+	 */
+	private boolean excludeField(Field field, boolean serialize) {
+		return excluder.excludeClass(field.getType(), serialize) || excluder.excludeField(field, serialize);
+	}
+
+	private static List<String> fieldNames(Gson gson, Field field) {
+		final var annotation = field.getAnnotation(SerializedName.class);
+		if (annotation == null) {
+			return List.of(gson.fieldNamingStrategy().translateName(field));
+		}
+		final var names = new ArrayList<String>();
+		names.add(annotation.value());
+		names.addAll(List.of(annotation.alternate()));
+		return names;
+	}
+
+	private static Accessors createAccessors(Class<?> type) {
+		final var lookup = MethodHandles.lookup();
+		try {
+			MethodHandle constructor = null;
+			if (!type.isRecord() && !type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+				try {
+					final var declared = type.getDeclaredConstructor();
+					declared.setAccessible(true);
+					constructor = lookup.unreflectConstructor(declared).asType(MethodType.methodType(Object.class));
+				} catch (NoSuchMethodException e) {
+					// left to Gson, which allocates without a constructor
+				}
+			}
+			final var fields = new LinkedHashMap<Field, MethodHandle[]>();
+			for (final var field : type.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers())) {
+					continue;
+				}
+				field.setAccessible(true);
+				final var getter = lookup.unreflectGetter(field);
+				final var setter = lookup.unreflectSetter(field);
+				fields.put(field, new MethodHandle[] { getter, setter });
+			}
+			return new Accessors(constructor, fields);
+		} catch (RuntimeException | IllegalAccessException e) {
+			// for instance a class in a module that is not open
+			return new Accessors(null, Map.of());
+		}
+	}
+
+	private static BoundField bind(Gson gson, String name, Type fieldType, MethodHandle[] handles, boolean serialize,
+			boolean deserialize) {
+		final var adapter = gson.getAdapter(TypeToken.get(fieldType));
+		final var getter = handles[0];
+		final var setter = handles[1];
+		if (fieldType == int.class && adapter == TypeAdapters.INTEGER) {
+			return new IntField(name, serialize, deserialize, getter, setter);
+		}
+		if (fieldType == long.class && adapter == TypeAdapters.LONG) {
+			return new LongField(name, serialize, deserialize, getter, setter);
+		}
+		if (fieldType == boolean.class && adapter == TypeAdapters.BOOLEAN) {
+			return new BooleanField(name, serialize, deserialize, getter, setter);
+		}
+		if (fieldType == String.class && adapter == TypeAdapters.STRING) {
+			return new StringField(name, serialize, deserialize, getter, setter);
+		}
+		return new ObjectField(gson, name, serialize, deserialize, getter, setter, fieldType, adapter);
+	}
+
+	/**
+	 * Picks the adapter for a value as Gson's TypeAdapterRuntimeTypeWrapper does,
+	 * the adapter of its runtime class unless that is reflective and the declared
+	 * one is not
+	 *
+	 * @param declared the adapter of the declared type
+	 * @param type     the declared type, Object, a type variable or a class
+	 */
+	@SuppressWarnings("unchecked")
+	static TypeAdapter<Object> runtimeAdapter(Gson gson, TypeAdapter<Object> declared, Type type, Object value) {
+		if (value == null || value.getClass() == type) {
+			return declared;
+		}
+		final var runtime = (TypeAdapter<Object>) gson.getAdapter(value.getClass());
+		return !isReflective(runtime) || isReflective(declared) ? runtime : declared;
+	}
+
+	private static boolean isReflective(TypeAdapter<?> adapter) {
+		return adapter instanceof ReflectiveTypeAdapterFactory.Adapter || adapter instanceof Adapter;
+	}
+
+	/**
+	 * @return true if the runtime class of a value of the type may need another
+	 *         adapter
+	 */
+	static boolean isRuntimeTyped(Type type) {
+		return type == Object.class || type instanceof TypeVariable || type instanceof Class;
+	}
+
+	static RuntimeException rethrow(Throwable e) {
+		if (e instanceof RuntimeException) {
+			return (RuntimeException) e;
+		}
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+		return new JsonIOException(e);
+	}
+
+	/**
+	 * Reads and writes one JSON member of a bean
+	 */
+	private abstract static class BoundField {
+		final String name;
+
+		final boolean serialized;
+
+		final boolean deserialized;
+
+		BoundField(String name, boolean serialized, boolean deserialized) {
+			this.name = name;
+			this.serialized = serialized;
+			this.deserialized = deserialized;
+		}
+
+		/**
+		 * Writes the name and value unless the value is the bean itself
+		 */
+		abstract void write(JsonWriter out, Object bean) throws Throwable;
+
+		abstract void read(JsonReader in, Object bean) throws Throwable;
+	}
+
+	private static final class IntField extends BoundField {
+		private final MethodHandle getter;
+
+		private final MethodHandle setter;
+
+		IntField(String name, boolean serialized, boolean deserialized, MethodHandle getter, MethodHandle setter) {
+			super(name, serialized, deserialized);
+			this.getter = getter.asType(MethodType.methodType(int.class, Object.class));
+			this.setter = setter.asType(MethodType.methodType(void.class, Object.class, int.class));
+		}
+
+		@Override
+		void write(JsonWriter out, Object bean) throws Throwable {
+			out.name(name).value((int) getter.invokeExact(bean));
+		}
+
+		@Override
+		void read(JsonReader in, Object bean) throws Throwable {
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				return;
+			}
+			final int value;
+			try {
+				value = in.nextInt();
+			} catch (NumberFormatException e) {
+				throw new JsonSyntaxException(e);
+			}
+			setter.invokeExact(bean, value);
+		}
+	}
+
+	private static final class LongField extends BoundField {
+		private final MethodHandle getter;
+
+		private final MethodHandle setter;
+
+		LongField(String name, boolean serialized, boolean deserialized, MethodHandle getter, MethodHandle setter) {
+			super(name, serialized, deserialized);
+			this.getter = getter.asType(MethodType.methodType(long.class, Object.class));
+			this.setter = setter.asType(MethodType.methodType(void.class, Object.class, long.class));
+		}
+
+		@Override
+		void write(JsonWriter out, Object bean) throws Throwable {
+			out.name(name).value((long) getter.invokeExact(bean));
+		}
+
+		@Override
+		void read(JsonReader in, Object bean) throws Throwable {
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				return;
+			}
+			final long value;
+			try {
+				value = in.nextLong();
+			} catch (NumberFormatException e) {
+				throw new JsonSyntaxException(e);
+			}
+			setter.invokeExact(bean, value);
+		}
+	}
+
+	private static final class BooleanField extends BoundField {
+		private final MethodHandle getter;
+
+		private final MethodHandle setter;
+
+		BooleanField(String name, boolean serialized, boolean deserialized, MethodHandle getter,
+				MethodHandle setter) {
+			super(name, serialized, deserialized);
+			this.getter = getter.asType(MethodType.methodType(boolean.class, Object.class));
+			this.setter = setter.asType(MethodType.methodType(void.class, Object.class, boolean.class));
+		}
+
+		@Override
+		void write(JsonWriter out, Object bean) throws Throwable {
+			out.name(name).value((boolean) getter.invokeExact(bean));
+		}
+
+		@Override
+		void read(JsonReader in, Object bean) throws Throwable {
+			final var token = in.peek();
+			if (token == JsonToken.NULL) {
+				in.nextNull();
+				return;
+			}
+			final boolean value = token == JsonToken.STRING ? Boolean.parseBoolean(in.nextString())
+					: in.nextBoolean();
+			setter.invokeExact(bean, value);
+		}
+	}
+
+	private static final class StringField extends BoundField {
+		private final MethodHandle getter;
+
+		private final MethodHandle setter;
+
+		StringField(String name, boolean serialized, boolean deserialized, MethodHandle getter,
+				MethodHandle setter) {
+			super(name, serialized, deserialized);
+			this.getter = getter.asType(MethodType.methodType(String.class, Object.class));
+			this.setter = setter.asType(MethodType.methodType(void.class, Object.class, String.class));
+		}
+
+		@Override
+		void write(JsonWriter out, Object bean) throws Throwable {
+			out.name(name).value((String) getter.invokeExact(bean));
+		}
+
+		@Override
+		void read(JsonReader in, Object bean) throws Throwable {
+			final String value;
+			switch (in.peek()) {
+			case NULL:
+				in.nextNull();
+				value = null;
+				break;
+			case BOOLEAN:
+				value = Boolean.toString(in.nextBoolean());
+				break;
+			default:
+				value = in.nextString();
+			}
+			setter.invokeExact(bean, value);
+		}
+	}
+
+	private static final class ObjectField extends BoundField {
+		private final Gson gson;
+
+		private final MethodHandle getter;
+
+		private final MethodHandle setter;
+
+		private final Type type;
+
+		private final TypeAdapter<Object> adapter;
+
+		private final boolean primitive;
+
+		/** the runtime class may be more specific than the declared type */
+		private final boolean runtimeType;
+
+		@SuppressWarnings("unchecked")
+		ObjectField(Gson gson, String name, boolean serialized, boolean deserialized, MethodHandle getter,
+				MethodHandle setter, Type type, TypeAdapter<?> adapter) {
+			super(name, serialized, deserialized);
+			this.gson = gson;
+			this.getter = getter.asType(GETTER);
+			this.setter = setter.asType(SETTER);
+			this.type = type;
+			this.adapter = (TypeAdapter<Object>) adapter;
+			this.primitive = type instanceof Class && ((Class<?>) type).isPrimitive();
+			this.runtimeType = isRuntimeTyped(type);
+		}
+
+		@Override
+		void write(JsonWriter out, Object bean) throws Throwable {
+			final var value = (Object) getter.invokeExact(bean);
+			if (value == bean) {
+				return;
+			}
+			out.name(name);
+			(runtimeType ? runtimeAdapter(gson, adapter, type, value) : adapter).write(out, value);
+		}
+
+		@Override
+		void read(JsonReader in, Object bean) throws Throwable {
+			final var value = adapter.read(in);
+			if (value != null || !primitive) {
+				setter.invokeExact(bean, value);
+			}
+		}
+	}
+
+	private static final class Adapter<T> extends TypeAdapter<T> {
+		private final Type type;
+
+		/** creates the instances if not null */
+		private final InstanceCreator<?> creator;
+
+		private final MethodHandle constructor;
+
+		private final BoundField[] fields;
+
+		private final Map<String, BoundField> byName;
+
+		Adapter(Type type, InstanceCreator<?> creator, MethodHandle constructor, BoundField[] fields,
+				Map<String, BoundField> byName) {
+			this.type = type;
+			this.creator = creator;
+			this.constructor = constructor;
+			this.fields = fields;
+			this.byName = byName;
+		}
+
+		@Override
+		public void write(JsonWriter out, T value) throws IOException {
+			if (value == null) {
+				out.nullValue();
+				return;
+			}
+			out.beginObject();
+			try {
+				for (final var field : fields) {
+					if (field.serialized) {
+						field.write(out, value);
+					}
+				}
+			} catch (IOException e) {
+				throw e;
+			} catch (Throwable e) {
+				throw rethrow(e);
+			}
+			out.endObject();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T read(JsonReader in) throws IOException {
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				return null;
+			}
+			try {
+				final var instance = creator != null ? (T) creator.createInstance(type)
+						: (T) (Object) constructor.invokeExact();
+				in.beginObject();
+				while (in.hasNext()) {
+					final var field = byName.get(in.nextName());
+					if (field == null || !field.deserialized) {
+						in.skipValue();
+					} else {
+						field.read(in, instance);
+					}
+				}
+				in.endObject();
+				return instance;
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e);
+			} catch (IOException e) {
+				throw e;
+			} catch (Throwable e) {
+				throw rethrow(e);
+			}
+		}
+	}
+}
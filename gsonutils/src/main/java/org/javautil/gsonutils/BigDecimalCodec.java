@@ -0,0 +1,99 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.internal.LazilyParsedNumber;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes BigDecimal as a quoted string or, for
+ * {@link MapperOption#NUMERIC_DECIMALS}, as a JSON number, and reads either
+ * form.
+ *
+ * The text is {@link BigDecimal#toString()}, 1.0E-7 for 0.00000010. With
+ * {@link MapperOption#PLAIN_DECIMALS} values with a scale of zero or more are
+ * written in plain notation instead, which takes as many digits as the scale.
+ * Negative scales keep the exponent, 1E+3 rather than 1000, as the plain form
+ * would read back as a different scale.
+ *
+ * The codec adds the wire formats, it converts through the same text as the
+ * string adapter it replaced: {@link JsonReader#nextString()} and
+ * {@code new BigDecimal(String)} to read, the formatted text to write. The
+ * number is written with {@link JsonWriter#value(Number)} wrapping the text,
+ * which writes the digits as given like {@link JsonWriter#jsonValue(String)}
+ * but also works with tree writers and the writers that build maps and CBOR.
+ *
+ * @author jjs
+ *
+ */
+final class BigDecimalCodec extends TypeAdapter<BigDecimal> {
+	static final BigDecimalCodec QUOTED = new BigDecimalCodec(false, false);
+
+	static final BigDecimalCodec NUMERIC = new BigDecimalCodec(true, false);
+
+	static final BigDecimalCodec PLAIN = new BigDecimalCodec(false, true);
+
+	static final BigDecimalCodec PLAIN_NUMERIC = new BigDecimalCodec(true, true);
+
+	private final boolean numeric;
+
+	private final boolean plain;
+
+	private BigDecimalCodec(boolean numeric, boolean plain) {
+		this.numeric = numeric;
+		this.plain = plain;
+	}
+
+	/**
+	 * @param numeric for {@link MapperOption#NUMERIC_DECIMALS}
+	 * @param plain   for {@link MapperOption#PLAIN_DECIMALS}
+	 * @return the codec
+	 */
+	static BigDecimalCodec get(boolean numeric, boolean plain) {
+		if (plain) {
+			return numeric ? PLAIN_NUMERIC : PLAIN;
+		}
+		return numeric ? NUMERIC : QUOTED;
+	}
+
+	/**
+	 * @return the text written for the value
+	 */
+	String format(BigDecimal value) {
+		return plain && value.scale() >= 0 ? value.toPlainString() : value.toString();
+	}
+
+	@Override
+	public void write(JsonWriter out, BigDecimal value) throws IOException {
+		if (value == null) {
+			out.nullValue();
+		} else if (numeric) {
+			out.value(new LazilyParsedNumber(format(value)));
+		} else {
+			out.value(format(value));
+		}
+	}
+
+	@Override
+	public BigDecimal read(JsonReader in) throws IOException {
+		final var token = in.peek();
+		if (token == JsonToken.NULL) {
+			in.nextNull();
+			return null;
+		}
+		if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+			throw new JsonSyntaxException("Expected a decimal but was " + token + " at path " + in.getPath());
+		}
+		final var text = in.nextString();
+		try {
+			return new BigDecimal(text);
+		} catch (NumberFormatException e) {
+			throw new JsonSyntaxException("Expected a decimal but was \"" + text + "\" at path " + in.getPath(), e);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.internal.$Gson$Types;
+import com.google.gson.internal.bind.MapTypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Reads maps the way Gson's own map adapter does but through
+ * {@link JsonReader#nextName()}, for {@link MapperOption#CBOR}.
+ *
+ * Gson's adapter turns each name into a value through JsonReader internals
+ * that {@link CborReader} cannot reach, this one converts the name with the key
+ * adapter instead. Maps are still created and written by Gson's adapter, and
+ * an adapter registered for a map type is left alone.
+ *
+ * @author jjs
+ *
+ */
+final class CborMapTypeAdapterFactory implements TypeAdapterFactory {
+	static final CborMapTypeAdapterFactory INSTANCE = new CborMapTypeAdapterFactory();
+
+	private CborMapTypeAdapterFactory() {
+	}
+
+	@Override
+	public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+		if (!Map.class.isAssignableFrom(type.getRawType())) {
+			return null;
+		}
+		final var delegate = gson.getDelegateAdapter(this, type);
+		if (delegate.getClass().getEnclosingClass() != MapTypeAdapterFactory.class) {
+			return null;
+		}
+		final var keyAndValue = $Gson$Types.getMapKeyAndValueTypes(type.getType(), type.getRawType());
+		final var keyType = keyAndValue[0];
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		final var adapter = (TypeAdapter<T>) new Adapter(delegate, gson.getAdapter(TypeToken.get(keyType)),
+				gson.getAdapter(TypeToken.get(keyAndValue[1])), keyType == String.class || keyType == Object.class);
+		return adapter;
+	}
+
+	private static final class Adapter<K, V> extends TypeAdapter<Map<K, V>> {
+		private final TypeAdapter<Map<K, V>> delegate;
+
+		private final TypeAdapter<K> keyAdapter;
+
+		private final TypeAdapter<V> valueAdapter;
+
+		/** the key type is String or Object, a name needs no conversion */
+		private final boolean nameIsKey;
+
+		Adapter(TypeAdapter<Map<K, V>> delegate, TypeAdapter<K> keyAdapter, TypeAdapter<V> valueAdapter,
+				boolean nameIsKey) {
+			this.delegate = delegate;
+			this.keyAdapter = keyAdapter;
+			this.valueAdapter = valueAdapter;
+			this.nameIsKey = nameIsKey;
+		}
+
+		@Override
+		public void write(JsonWriter out, Map<K, V> value) throws IOException {
+			delegate.write(out, value);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Map<K, V> read(JsonReader in) throws IOException {
+			final var token = in.peek();
+			if (token == JsonToken.NULL) {
+				in.nextNull();
+				return null;
+			}
+			// Gson's adapter creates the map, as it would for an empty object
+			final var map = delegate.fromJsonTree(new JsonObject());
+			if (token == JsonToken.BEGIN_ARRAY) {
+				// the form of complex map key serialization
+				in.beginArray();
+				while (in.hasNext()) {
+					in.beginArray();
+					put(map, keyAdapter.read(in), valueAdapter.read(in));
+					in.endArray();
+				}
+				in.endArray();
+			} else {
+				in.beginObject();
+				while (in.hasNext()) {
+					final var name = in.nextName();
+					final var key = nameIsKey ? (K) name : keyAdapter.fromJsonTree(new JsonPrimitive(name));
+					put(map, key, valueAdapter.read(in));
+				}
+				in.endObject();
+			}
+			return map;
+		}
+
+		private void put(Map<K, V> map, K key, V value) {
+			if (map.put(key, value) != null) {
+				throw new JsonSyntaxException("duplicate key: " + key);
+			}
+		}
+	}
+}
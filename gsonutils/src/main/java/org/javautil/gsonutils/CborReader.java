@@ -0,0 +1,736 @@
+package org.javautil.gsonutils;
+
+import static org.javautil.gsonutils.CborWriter.ARRAY;
+import static org.javautil.gsonutils.CborWriter.BREAK;
+import static org.javautil.gsonutils.CborWriter.BYTES;
+import static org.javautil.gsonutils.CborWriter.INDEFINITE;
+import static org.javautil.gsonutils.CborWriter.MAP;
+import static org.javautil.gsonutils.CborWriter.NEGATIVE;
+import static org.javautil.gsonutils.CborWriter.SIMPLE;
+import static org.javautil.gsonutils.CborWriter.TAG;
+import static org.javautil.gsonutils.CborWriter.TAG_DECIMAL_FRACTION;
+import static org.javautil.gsonutils.CborWriter.TAG_NEGATIVE_BIGNUM;
+import static org.javautil.gsonutils.CborWriter.TAG_POSITIVE_BIGNUM;
+import static org.javautil.gsonutils.CborWriter.TEXT;
+import static org.javautil.gsonutils.CborWriter.UNSIGNED;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * A JsonReader that reads one CBOR (RFC 8949) data item instead of JSON text,
+ * so every adapter of a mapper can consume it.
+ *
+ * Integers, floating point, bignums (tags 2 and 3) and decimal fractions (tag
+ * 4) are numbers, their text is that of the Long, BigInteger, Double or
+ * BigDecimal they hold. Byte strings are read as base64url text and integer
+ * map keys as their decimal text, as RFC 8949 section 6.1 suggests. Undefined
+ * is null and other tags are ignored.
+ *
+ * Gson's map adapter reaches into the JsonReader to turn a name into a value,
+ * which a subclass cannot support, so maps are read through the adapter of
+ * {@link MapperOption#CBOR}.
+ *
+ * Truncated input throws {@link BufferUnderflowException}.
+ *
+ * @author jjs
+ *
+ */
+final class CborReader extends JsonReader {
+	private static final Reader UNREADABLE_READER = new Reader() {
+		@Override
+		public int read(char[] buffer, int offset, int length) throws IOException {
+			throw new IOException("CBOR cannot be read as text");
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	static final int MAX_DEPTH = 1000;
+
+	private static final int NO_TAG = -1;
+
+	private final ByteBuffer source;
+
+	private final ByteBuffer in;
+
+	/** per open container, the items left or -1 for an indefinite length */
+	private long[] remaining = new long[32];
+
+	private boolean[] objects = new boolean[32];
+
+	/** per open object, whether the next item is a name */
+	private boolean[] names = new boolean[32];
+
+	private String[] pathNames = new String[32];
+
+	private int[] pathIndices = new int[32];
+
+	private int depth;
+
+	private boolean complete;
+
+	/** the token of the head that has been read, null if none */
+	private JsonToken peeked;
+
+	private int major;
+
+	private int info;
+
+	/** the argument of the head, or the bits of a float */
+	private long argument;
+
+	/** the bignum or decimal fraction tag of the peeked number */
+	private int tag = NO_TAG;
+
+	/**
+	 * @param source holds a data item from its position, which is advanced as it
+	 *               is read
+	 */
+	CborReader(ByteBuffer source) {
+		super(UNREADABLE_READER);
+		this.source = source;
+		this.in = source.duplicate().order(ByteOrder.BIG_ENDIAN);
+	}
+
+	@Override
+	public JsonToken peek() throws IOException {
+		if (peeked != null) {
+			return peeked;
+		}
+		if (depth == 0) {
+			if (complete) {
+				return peeked = JsonToken.END_DOCUMENT;
+			}
+			if (!in.hasRemaining()) {
+				throw new EOFException("End of input" + locationString());
+			}
+		} else if (remaining[depth - 1] == 0 || remaining[depth - 1] < 0 && atBreak()) {
+			if (objects[depth - 1] && !names[depth - 1]) {
+				throw syntaxError("Missing value of the last name");
+			}
+			return peeked = objects[depth - 1] ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+		}
+		readHead();
+		tag = NO_TAG;
+		while (major == TAG) {
+			if (tag == NO_TAG && (argument == TAG_POSITIVE_BIGNUM || argument == TAG_NEGATIVE_BIGNUM
+					|| argument == TAG_DECIMAL_FRACTION)) {
+				tag = (int) argument;
+			}
+			readHead();
+		}
+		if (depth > 0 && objects[depth - 1] && names[depth - 1]) {
+			if (tag != NO_TAG || major != TEXT && major != UNSIGNED && major != NEGATIVE) {
+				throw syntaxError("Expected a text or integer key but was major type " + major);
+			}
+			return peeked = JsonToken.NAME;
+		}
+		if (tag == TAG_DECIMAL_FRACTION && (major != ARRAY || argument != 2)) {
+			throw syntaxError("Expected a decimal fraction [exponent, mantissa]");
+		}
+		if ((tag == TAG_POSITIVE_BIGNUM || tag == TAG_NEGATIVE_BIGNUM) && major != BYTES) {
+			throw syntaxError("Expected a byte string for a bignum");
+		}
+		if (tag != NO_TAG) {
+			return peeked = JsonToken.NUMBER;
+		}
+		switch (major) {
+		case UNSIGNED:
+		case NEGATIVE:
+			return peeked = JsonToken.NUMBER;
+		case BYTES:
+		case TEXT:
+			return peeked = JsonToken.STRING;
+		case ARRAY:
+			return peeked = JsonToken.BEGIN_ARRAY;
+		case MAP:
+			return peeked = JsonToken.BEGIN_OBJECT;
+		default:
+			return peeked = simpleToken();
+		}
+	}
+
+	private JsonToken simpleToken() throws IOException {
+		switch (info) {
+		case CborWriter.FALSE & 0x1f:
+		case CborWriter.TRUE & 0x1f:
+			return JsonToken.BOOLEAN;
+		case CborWriter.NULL & 0x1f:
+		case CborWriter.UNDEFINED & 0x1f:
+			return JsonToken.NULL;
+		case CborWriter.HALF & 0x1f:
+		case CborWriter.SINGLE & 0x1f:
+		case CborWriter.DOUBLE & 0x1f:
+			return JsonToken.NUMBER;
+		default:
+			throw syntaxError("Unsupported simple value " + info);
+		}
+	}
+
+	/**
+	 * Reads an initial byte and its argument, or the bits of a float
+	 */
+	private void readHead() throws IOException {
+		final var initial = in.get() & 0xff;
+		major = initial >>> 5;
+		info = initial & 0x1f;
+		if (major == SIMPLE) {
+			switch (info) {
+			case CborWriter.HALF & 0x1f:
+				argument = in.getShort() & 0xffff;
+				break;
+			case CborWriter.SINGLE & 0x1f:
+				argument = in.getInt();
+				break;
+			case CborWriter.DOUBLE & 0x1f:
+				argument = in.getLong();
+				break;
+			default:
+				argument = info;
+			}
+		} else if (info == INDEFINITE && major >= BYTES && major <= MAP) {
+			argument = -1;
+		} else {
+			argument = argument(info);
+			if (argument < 0 && major >= BYTES && major <= MAP) {
+				// more bytes or items than a buffer can hold
+				throw new BufferUnderflowException();
+			}
+		}
+	}
+
+	/**
+	 * @return the unsigned argument that follows an initial byte
+	 */
+	private long argument(int info) throws IOException {
+		if (info < 24) {
+			return info;
+		}
+		switch (info) {
+		case 24:
+			return in.get() & 0xffL;
+		case 25:
+			return in.getShort() & 0xffffL;
+		case 26:
+			return in.getInt() & 0xffffffffL;
+		case 27:
+			return in.getLong();
+		default:
+			throw syntaxError("Invalid additional information " + info);
+		}
+	}
+
+	private boolean atBreak() {
+		if (!in.hasRemaining()) {
+			throw new BufferUnderflowException();
+		}
+		return in.get(in.position()) == (byte) BREAK;
+	}
+
+	/**
+	 * @return the number of items of a container, each takes at least a byte
+	 */
+	private long items(long argument, boolean map) {
+		if (argument < 0) {
+			return -1;
+		}
+		if (argument > in.remaining() || map && argument * 2 > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		return map ? argument * 2 : argument;
+	}
+
+	@Override
+	public void beginArray() throws IOException {
+		expect(JsonToken.BEGIN_ARRAY);
+		push(items(argument, false), false);
+	}
+
+	@Override
+	public void endArray() throws IOException {
+		expect(JsonToken.END_ARRAY);
+		pop();
+	}
+
+	@Override
+	public void beginObject() throws IOException {
+		expect(JsonToken.BEGIN_OBJECT);
+		// a name and a value per entry
+		push(items(argument, true), true);
+	}
+
+	@Override
+	public void endObject() throws IOException {
+		expect(JsonToken.END_OBJECT);
+		pop();
+	}
+
+	private void push(long items, boolean object) throws IOException {
+		if (depth == MAX_DEPTH) {
+			throw syntaxError("Nested deeper than " + MAX_DEPTH);
+		}
+		if (depth == remaining.length) {
+			final var length = depth * 2;
+			remaining = Arrays.copyOf(remaining, length);
+			objects = Arrays.copyOf(objects, length);
+			names = Arrays.copyOf(names, length);
+			pathNames = Arrays.copyOf(pathNames, length);
+			pathIndices = Arrays.copyOf(pathIndices, length);
+		}
+		remaining[depth] = items;
+		objects[depth] = object;
+		names[depth] = true;
+		pathNames[depth] = null;
+		pathIndices[depth] = 0;
+		depth++;
+		peeked = null;
+	}
+
+	private void pop() {
+		if (remaining[depth - 1] < 0) {
+			in.get();
+		}
+		depth--;
+		pathNames[depth] = null;
+		consumed();
+	}
+
+	/**
+	 * Advances past the peeked value or name
+	 */
+	private void consumed() {
+		peeked = null;
+		if (depth == 0) {
+			complete = true;
+			source.position(in.position());
+			return;
+		}
+		final var top = depth - 1;
+		if (remaining[top] > 0) {
+			remaining[top]--;
+		}
+		if (objects[top]) {
+			names[top] = !names[top];
+		} else {
+			pathIndices[top]++;
+		}
+	}
+
+	@Override
+	public boolean hasNext() throws IOException {
+		final var token = peek();
+		return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+	}
+
+	@Override
+	public String nextName() throws IOException {
+		expect(JsonToken.NAME);
+		final var name = major == TEXT ? text() : integer().toString();
+		pathNames[depth - 1] = name;
+		consumed();
+		return name;
+	}
+
+	@Override
+	public String nextString() throws IOException {
+		final var token = peek();
+		final String value;
+		if (token == JsonToken.STRING) {
+			value = major == TEXT ? text() : Base64.getUrlEncoder().withoutPadding().encodeToString(bytes(major));
+		} else if (token == JsonToken.NUMBER) {
+			value = number().toString();
+		} else {
+			throw new IllegalStateException("Expected a string but was " + token + locationString());
+		}
+		consumed();
+		return value;
+	}
+
+	@Override
+	public boolean nextBoolean() throws IOException {
+		expect(JsonToken.BOOLEAN);
+		consumed();
+		return info == (CborWriter.TRUE & 0x1f);
+	}
+
+	@Override
+	public void nextNull() throws IOException {
+		expect(JsonToken.NULL);
+		consumed();
+	}
+
+	@Override
+	public double nextDouble() throws IOException {
+		final var token = peek();
+		final double value;
+		if (token == JsonToken.NUMBER) {
+			value = isSmallInteger() ? (double) smallInteger() : number().doubleValue();
+		} else if (token == JsonToken.STRING) {
+			value = Double.parseDouble(nextStringContent());
+		} else {
+			throw new IllegalStateException("Expected a double but was " + token + locationString());
+		}
+		if (!isLenient() && (Double.isNaN(value) || Double.isInfinite(value))) {
+			throw new MalformedJsonException("JSON forbids NaN and infinities: " + value + locationString());
+		}
+		consumed();
+		return value;
+	}
+
+	@Override
+	public long nextLong() throws IOException {
+		final var token = peek();
+		final long value;
+		if (token == JsonToken.NUMBER && isSmallInteger()) {
+			value = smallInteger();
+		} else if (token == JsonToken.NUMBER) {
+			value = exactLong(number(), "long");
+		} else if (token == JsonToken.STRING) {
+			value = exactLong(parse(nextStringContent()), "long");
+		} else {
+			throw new IllegalStateException("Expected a long but was " + token + locationString());
+		}
+		consumed();
+		return value;
+	}
+
+	@Override
+	public int nextInt() throws IOException {
+		final var token = peek();
+		final long value;
+		if (token == JsonToken.NUMBER && isSmallInteger()) {
+			value = smallInteger();
+		} else if (token == JsonToken.NUMBER) {
+			value = exactLong(number(), "int");
+		} else if (token == JsonToken.STRING) {
+			value = exactLong(parse(nextStringContent()), "int");
+		} else {
+			throw new IllegalStateException("Expected an int but was " + token + locationString());
+		}
+		if (value != (int) value) {
+			throw new NumberFormatException("Expected an int but was " + value + locationString());
+		}
+		consumed();
+		return (int) value;
+	}
+
+	@Override
+	public void skipValue() throws IOException {
+		final var token = peek();
+		if (token == JsonToken.END_ARRAY || token == JsonToken.END_OBJECT || token == JsonToken.END_DOCUMENT) {
+			throw new IllegalStateException("Expected a value but was " + token + locationString());
+		}
+		skipContent(major, argument, 0);
+		if (depth > 0 && objects[depth - 1]) {
+			pathNames[depth - 1] = "null";
+		}
+		consumed();
+	}
+
+	/**
+	 * Skips what follows a head already read
+	 */
+	private void skipContent(int major, long argument, int nesting) throws IOException {
+		if (nesting > MAX_DEPTH) {
+			throw syntaxError("Nested deeper than " + MAX_DEPTH);
+		}
+		switch (major) {
+		case BYTES:
+		case TEXT:
+			if (argument >= 0) {
+				skipBytes(argument);
+			} else {
+				for (var initial = in.get() & 0xff; initial != BREAK; initial = in.get() & 0xff) {
+					if (initial >>> 5 != major || (initial & 0x1f) == INDEFINITE) {
+						throw syntaxError("Invalid string chunk");
+					}
+					skipBytes(argument(initial & 0x1f));
+				}
+			}
+			break;
+		case ARRAY:
+		case MAP:
+			final var items = items(argument, major == MAP);
+			if (items >= 0) {
+				for (var item = 0L; item < items; item++) {
+					skipItem(nesting + 1);
+				}
+			} else {
+				while (!atBreak()) {
+					skipItem(nesting + 1);
+				}
+				in.get();
+			}
+			break;
+		case TAG:
+			skipItem(nesting + 1);
+			break;
+		default:
+			// integers and simple values are all head
+		}
+	}
+
+	private void skipItem(int nesting) throws IOException {
+		readHead();
+		if (major == SIMPLE && info == INDEFINITE) {
+			throw syntaxError("Unexpected break");
+		}
+		skipContent(major, argument, nesting);
+	}
+
+	private void skipBytes(long length) {
+		in.position(in.position() + length(length));
+	}
+
+	private void expect(JsonToken expected) throws IOException {
+		final var token = peek();
+		if (token != expected) {
+			throw new IllegalStateException("Expected " + expected + " but was " + token + locationString());
+		}
+	}
+
+	/**
+	 * @return the content of the peeked string, for a number read from text
+	 */
+	private String nextStringContent() throws IOException {
+		return major == TEXT ? text() : Base64.getUrlEncoder().withoutPadding().encodeToString(bytes(major));
+	}
+
+	private static Number parse(String text) {
+		try {
+			return Long.parseLong(text);
+		} catch (NumberFormatException e) {
+			return new BigDecimal(text);
+		}
+	}
+
+	private long exactLong(Number number, String type) {
+		try {
+			if (number instanceof Long) {
+				return number.longValue();
+			}
+			if (number instanceof BigInteger) {
+				return ((BigInteger) number).longValueExact();
+			}
+			if (number instanceof BigDecimal) {
+				return ((BigDecimal) number).longValueExact();
+			}
+			final var value = number.doubleValue();
+			if ((long) value == value) {
+				return (long) value;
+			}
+		} catch (ArithmeticException e) {
+			// below
+		}
+		throw new NumberFormatException("Expected " + (type.equals("int") ? "an " : "a ") + type + " but was "
+				+ number + locationString());
+	}
+
+	/**
+	 * @return whether the peeked number is an integer that fits a long
+	 */
+	private boolean isSmallInteger() {
+		return tag == NO_TAG && (major == UNSIGNED || major == NEGATIVE) && argument >= 0;
+	}
+
+	private long smallInteger() {
+		return major == UNSIGNED ? argument : -1 - argument;
+	}
+
+	/**
+	 * @return the peeked number as a Long, BigInteger, Double or BigDecimal
+	 */
+	private Number number() throws IOException {
+		if (tag == TAG_DECIMAL_FRACTION) {
+			final var exponent = rawInteger();
+			final var mantissa = rawInteger();
+			if (exponent.bitLength() >= 32) {
+				throw syntaxError("Decimal fraction exponent out of range " + exponent);
+			}
+			return new BigDecimal(mantissa, -exponent.intValue());
+		}
+		if (tag != NO_TAG) {
+			return bignum(tag, bytes(BYTES));
+		}
+		switch (major) {
+		case UNSIGNED:
+		case NEGATIVE:
+			return integer();
+		default:
+			return floatValue(info, argument);
+		}
+	}
+
+	/**
+	 * @return the integer or bignum that follows, of a decimal fraction
+	 */
+	private BigInteger rawInteger() throws IOException {
+		readHead();
+		if (major == TAG && (argument == TAG_POSITIVE_BIGNUM || argument == TAG_NEGATIVE_BIGNUM)) {
+			final var bignumTag = (int) argument;
+			readHead();
+			if (major != BYTES) {
+				throw syntaxError("Expected a byte string for a bignum");
+			}
+			return bignum(bignumTag, bytes(BYTES));
+		}
+		if (major != UNSIGNED && major != NEGATIVE) {
+			throw syntaxError("Expected an integer in a decimal fraction");
+		}
+		final var value = integer();
+		return value instanceof BigInteger ? (BigInteger) value : BigInteger.valueOf(value.longValue());
+	}
+
+	private static BigInteger bignum(int tag, byte[] bytes) {
+		final var magnitude = new BigInteger(1, bytes);
+		// a negative bignum holds -1 - n
+		return tag == TAG_POSITIVE_BIGNUM ? magnitude : magnitude.not();
+	}
+
+	/**
+	 * @return the integer of the head, BigInteger beyond a long
+	 */
+	private Number integer() {
+		if (argument >= 0) {
+			return smallInteger();
+		}
+		final var unsigned = new BigInteger(Long.toUnsignedString(argument));
+		return major == UNSIGNED ? unsigned : unsigned.not();
+	}
+
+	private static Double floatValue(int info, long bits) {
+		switch (info) {
+		case CborWriter.HALF & 0x1f:
+			return fromHalf((int) bits);
+		case CborWriter.SINGLE & 0x1f:
+			return (double) Float.intBitsToFloat((int) bits);
+		default:
+			return Double.longBitsToDouble(bits);
+		}
+	}
+
+	/**
+	 * As RFC 8949 appendix D
+	 */
+	static double fromHalf(int half) {
+		final var exponent = half >>> 10 & 0x1f;
+		final var mantissa = half & 0x3ff;
+		final double value;
+		if (exponent == 0) {
+			value = Math.scalb((double) mantissa, -24);
+		} else if (exponent != 31) {
+			value = Math.scalb((double) (mantissa + 1024), exponent - 25);
+		} else {
+			value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+		}
+		return (half & 0x8000) == 0 ? value : -value;
+	}
+
+	/**
+	 * @return the text string of the head
+	 */
+	private String text() throws IOException {
+		if (argument < 0 || !in.hasArray()) {
+			return new String(bytes(TEXT), StandardCharsets.UTF_8);
+		}
+		final var length = length(argument);
+		final var text = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+		in.position(in.position() + length);
+		return text;
+	}
+
+	/**
+	 * @return the content of the byte or text string of the head, chunks joined
+	 */
+	private byte[] bytes(int stringMajor) throws IOException {
+		if (argument >= 0) {
+			final var bytes = new byte[length(argument)];
+			in.get(bytes);
+			return bytes;
+		}
+		final var joined = new ByteArrayOutputStream();
+		for (var initial = in.get() & 0xff; initial != BREAK; initial = in.get() & 0xff) {
+			if (initial >>> 5 != stringMajor || (initial & 0x1f) == INDEFINITE) {
+				throw syntaxError("Invalid string chunk");
+			}
+			final var chunk = new byte[length(argument(initial & 0x1f))];
+			in.get(chunk);
+			joined.write(chunk, 0, chunk.length);
+		}
+		return joined.toByteArray();
+	}
+
+	/**
+	 * @return the length of a string, checked against the bytes left
+	 */
+	private int length(long length) {
+		if (length < 0 || length > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		return (int) length;
+	}
+
+	private MalformedJsonException syntaxError(String message) {
+		return new MalformedJsonException(message + " at byte " + (in.position() - source.position())
+				+ locationString());
+	}
+
+	private String locationString() {
+		return " at path " + getPath();
+	}
+
+	@Override
+	public String getPath() {
+		return path(false);
+	}
+
+	@Override
+	public String getPreviousPath() {
+		return path(true);
+	}
+
+	private String path(boolean previous) {
+		final var path = new StringBuilder().append('$');
+		for (int i = 0; i < depth; i++) {
+			if (objects[i]) {
+				path.append('.');
+				if (pathNames[i] != null) {
+					path.append(pathNames[i]);
+				}
+			} else {
+				var index = pathIndices[i];
+				if (previous && index > 0 && i == depth - 1) {
+					index--;
+				}
+				path.append('[').append(index).append(']');
+			}
+		}
+		return path.toString();
+	}
+
+	@Override
+	public void close() {
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + locationString();
+	}
+}
@@ -0,0 +1,501 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A JsonWriter that writes CBOR (RFC 8949) instead of JSON text, so every
+ * adapter of a mapper can produce it.
+ *
+ * Objects and arrays are written with indefinite lengths as their sizes are
+ * not known in advance. Integers take the shortest head, doubles the shortest
+ * of half, single and double precision that holds the value exactly, and
+ * floats single precision. BigInteger beyond a long is a bignum (tags 2 and
+ * 3), and BigDecimal and the decimal text of a number such as a
+ * {@code LazilyParsedNumber} are decimal fractions (tag 4) so no digit or
+ * scale is lost. Raw JSON from {@link #jsonValue(String)} is not supported.
+ *
+ * As with {@link JsonWriter} the name of a null member is dropped unless nulls
+ * are serialized.
+ *
+ * @author jjs
+ *
+ */
+final class CborWriter extends JsonWriter {
+	private static final Writer UNWRITABLE_WRITER = new Writer() {
+		@Override
+		public void write(char[] buffer, int offset, int counter) {
+			throw new AssertionError();
+		}
+
+		@Override
+		public void flush() {
+			throw new AssertionError();
+		}
+
+		@Override
+		public void close() {
+			throw new AssertionError();
+		}
+	};
+
+	static final int UNSIGNED = 0;
+
+	static final int NEGATIVE = 1;
+
+	static final int BYTES = 2;
+
+	static final int TEXT = 3;
+
+	static final int ARRAY = 4;
+
+	static final int MAP = 5;
+
+	static final int TAG = 6;
+
+	static final int SIMPLE = 7;
+
+	static final int TAG_POSITIVE_BIGNUM = 2;
+
+	static final int TAG_NEGATIVE_BIGNUM = 3;
+
+	static final int TAG_DECIMAL_FRACTION = 4;
+
+	static final int FALSE = 0xf4;
+
+	static final int TRUE = 0xf5;
+
+	static final int NULL = 0xf6;
+
+	static final int UNDEFINED = 0xf7;
+
+	static final int HALF = 0xf9;
+
+	static final int SINGLE = 0xfa;
+
+	static final int DOUBLE = 0xfb;
+
+	static final int INDEFINITE = 31;
+
+	static final int BREAK = 0xff;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	/** receives the buffer when it fills, null to grow it instead */
+	private final OutputStream out;
+
+	private byte[] buffer;
+
+	private int count;
+
+	/** the bytes already drained to the stream */
+	private long flushed;
+
+	/** true for each open object, false for each open array */
+	private boolean[] objects = new boolean[32];
+
+	private int depth;
+
+	private String pendingName;
+
+	private boolean complete;
+
+	/**
+	 * Collects the CBOR for {@link #toByteArray()}
+	 */
+	CborWriter() {
+		this(null);
+	}
+
+	/**
+	 * @param out receives the CBOR on flush and as the buffer fills, not closed
+	 */
+	CborWriter(OutputStream out) {
+		super(UNWRITABLE_WRITER);
+		this.out = out;
+		this.buffer = new byte[out == null ? 256 : BUFFER_SIZE];
+	}
+
+	/**
+	 * @return the CBOR written when there is no stream
+	 */
+	byte[] toByteArray() {
+		return Arrays.copyOf(buffer, count);
+	}
+
+	/**
+	 * @return the number of bytes written
+	 */
+	long size() {
+		return flushed + count;
+	}
+
+	@Override
+	public JsonWriter beginArray() throws IOException {
+		return open(false);
+	}
+
+	@Override
+	public JsonWriter endArray() throws IOException {
+		return close(false);
+	}
+
+	@Override
+	public JsonWriter beginObject() throws IOException {
+		return open(true);
+	}
+
+	@Override
+	public JsonWriter endObject() throws IOException {
+		return close(true);
+	}
+
+	private JsonWriter open(boolean object) throws IOException {
+		beforeValue();
+		if (depth == objects.length) {
+			objects = Arrays.copyOf(objects, depth * 2);
+		}
+		objects[depth++] = object;
+		writeByte((object ? MAP : ARRAY) << 5 | INDEFINITE);
+		return this;
+	}
+
+	private JsonWriter close(boolean object) throws IOException {
+		if (depth == 0 || objects[depth - 1] != object || pendingName != null) {
+			throw new IllegalStateException("Nesting problem.");
+		}
+		depth--;
+		writeByte(BREAK);
+		return this;
+	}
+
+	@Override
+	public JsonWriter name(String name) throws IOException {
+		if (name == null) {
+			throw new NullPointerException("name == null");
+		}
+		if (depth == 0 || !objects[depth - 1] || pendingName != null) {
+			throw new IllegalStateException();
+		}
+		pendingName = name;
+		return this;
+	}
+
+	/**
+	 * Writes the pending name in an object, or checks there is only one top level
+	 * value
+	 */
+	private void beforeValue() throws IOException {
+		if (depth == 0) {
+			if (complete) {
+				throw new IllegalStateException("JSON must have only one top-level value.");
+			}
+			complete = true;
+		} else if (objects[depth - 1]) {
+			if (pendingName == null) {
+				throw new IllegalStateException("Nesting problem.");
+			}
+			writeText(pendingName);
+			pendingName = null;
+		}
+	}
+
+	@Override
+	public JsonWriter value(String value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		beforeValue();
+		writeText(value);
+		return this;
+	}
+
+	@Override
+	public JsonWriter jsonValue(String value) throws IOException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public JsonWriter nullValue() throws IOException {
+		if (pendingName != null && !getSerializeNulls()) {
+			pendingName = null;
+			return this;
+		}
+		beforeValue();
+		writeByte(NULL);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(boolean value) throws IOException {
+		beforeValue();
+		writeByte(value ? TRUE : FALSE);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(Boolean value) throws IOException {
+		return value == null ? nullValue() : value(value.booleanValue());
+	}
+
+	@Override
+	public JsonWriter value(double value) throws IOException {
+		checkFinite(value);
+		beforeValue();
+		writeDouble(value);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(long value) throws IOException {
+		beforeValue();
+		writeLong(value);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(Number value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+				|| value instanceof AtomicInteger || value instanceof AtomicLong) {
+			return value(value.longValue());
+		}
+		if (value instanceof Double) {
+			return value(value.doubleValue());
+		}
+		if (value instanceof Float) {
+			checkFinite(value.floatValue());
+			beforeValue();
+			writeFloat(value.floatValue());
+			return this;
+		}
+		if (value instanceof BigInteger) {
+			beforeValue();
+			writeBigInteger((BigInteger) value);
+			return this;
+		}
+		if (value instanceof BigDecimal) {
+			beforeValue();
+			writeDecimal((BigDecimal) value);
+			return this;
+		}
+		return writeNumber(value.toString());
+	}
+
+	/**
+	 * Writes the text of a JSON number, such as a {@code LazilyParsedNumber}
+	 */
+	private JsonWriter writeNumber(String text) throws IOException {
+		if (text.equals("NaN") || text.equals("Infinity") || text.equals("-Infinity")) {
+			return value(Double.parseDouble(text));
+		}
+		final var integer = text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0;
+		if (integer && text.length() <= 18) {
+			return value(Long.parseLong(text));
+		}
+		// parsed before the name is written so a bad number leaves the output as it was
+		final var number = integer ? new BigInteger(text) : new BigDecimal(text);
+		beforeValue();
+		if (integer) {
+			writeBigInteger((BigInteger) number);
+		} else {
+			writeDecimal((BigDecimal) number);
+		}
+		return this;
+	}
+
+	private void checkFinite(double value) {
+		if (!isLenient() && (Double.isNaN(value) || Double.isInfinite(value))) {
+			throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (out != null) {
+			flushBuffer();
+			out.flush();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+		if (depth > 0) {
+			throw new IOException("Incomplete document");
+		}
+	}
+
+	private void writeLong(long value) throws IOException {
+		if (value >= 0) {
+			writeHead(UNSIGNED, value);
+		} else {
+			writeHead(NEGATIVE, ~value);
+		}
+	}
+
+	private void writeDouble(double value) throws IOException {
+		final var single = (float) value;
+		if (single == value || Double.isNaN(value)) {
+			writeFloat(single);
+		} else {
+			ensure(9);
+			buffer[count++] = (byte) DOUBLE;
+			putLong(Double.doubleToLongBits(value), 8);
+		}
+	}
+
+	private void writeFloat(float value) throws IOException {
+		final var half = toHalf(value);
+		ensure(5);
+		if (half >= 0) {
+			buffer[count++] = (byte) HALF;
+			putLong(half, 2);
+		} else {
+			buffer[count++] = (byte) SINGLE;
+			putLong(Float.floatToIntBits(value), 4);
+		}
+	}
+
+	/**
+	 * @return the half precision bits of the value, -1 if it has none that are
+	 *         exact
+	 */
+	static int toHalf(float value) {
+		final var bits = Float.floatToRawIntBits(value);
+		final var sign = bits >>> 16 & 0x8000;
+		final var exponent = bits >>> 23 & 0xff;
+		final var mantissa = bits & 0x7fffff;
+		if (exponent == 0 && mantissa == 0) {
+			return sign;
+		}
+		if (exponent == 0xff) {
+			return mantissa == 0 ? sign | 0x7c00 : 0x7e00;
+		}
+		final var halfExponent = exponent - 127 + 15;
+		// subnormal halves are left to single precision
+		if (halfExponent < 1 || halfExponent > 30 || (mantissa & 0x1fff) != 0) {
+			return -1;
+		}
+		return sign | halfExponent << 10 | mantissa >>> 13;
+	}
+
+	private void writeBigInteger(BigInteger value) throws IOException {
+		if (value.bitLength() < 64) {
+			writeLong(value.longValue());
+			return;
+		}
+		final var negative = value.signum() < 0;
+		// a negative bignum holds -1 - n
+		final var bytes = (negative ? value.not() : value).toByteArray();
+		final var offset = bytes[0] == 0 ? 1 : 0;
+		writeHead(TAG, negative ? TAG_NEGATIVE_BIGNUM : TAG_POSITIVE_BIGNUM);
+		writeHead(BYTES, bytes.length - offset);
+		writeBytes(bytes, offset, bytes.length - offset);
+	}
+
+	private void writeDecimal(BigDecimal value) throws IOException {
+		writeHead(TAG, TAG_DECIMAL_FRACTION);
+		writeHead(ARRAY, 2);
+		writeLong(-(long) value.scale());
+		writeBigInteger(value.unscaledValue());
+	}
+
+	private void writeText(String value) throws IOException {
+		final var length = value.length();
+		ensure(9 + length);
+		final var start = count;
+		writeHead(TEXT, length);
+		var index = count;
+		for (int i = 0; i < length; i++) {
+			final var c = value.charAt(i);
+			if (c >= 0x80) {
+				// not ASCII, the length in bytes differs
+				count = start;
+				final var bytes = value.getBytes(StandardCharsets.UTF_8);
+				writeHead(TEXT, bytes.length);
+				writeBytes(bytes, 0, bytes.length);
+				return;
+			}
+			buffer[index++] = (byte) c;
+		}
+		count = index;
+	}
+
+	/**
+	 * Writes the initial byte and argument in the shortest form
+	 */
+	private void writeHead(int major, long argument) throws IOException {
+		ensure(9);
+		final var type = major << 5;
+		if (argument < 24) {
+			buffer[count++] = (byte) (type | (int) argument);
+		} else if (argument <= 0xff) {
+			buffer[count++] = (byte) (type | 24);
+			putLong(argument, 1);
+		} else if (argument <= 0xffff) {
+			buffer[count++] = (byte) (type | 25);
+			putLong(argument, 2);
+		} else if (argument <= 0xffffffffL) {
+			buffer[count++] = (byte) (type | 26);
+			putLong(argument, 4);
+		} else {
+			buffer[count++] = (byte) (type | 27);
+			putLong(argument, 8);
+		}
+	}
+
+	private void putLong(long value, int bytes) {
+		for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+			buffer[count++] = (byte) (value >>> shift);
+		}
+	}
+
+	private void writeByte(int value) throws IOException {
+		ensure(1);
+		buffer[count++] = (byte) value;
+	}
+
+	private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+		if (out != null && length > buffer.length) {
+			flushBuffer();
+			out.write(bytes, offset, length);
+			return;
+		}
+		ensure(length);
+		System.arraycopy(bytes, offset, buffer, count, length);
+		count += length;
+	}
+
+	/**
+	 * Makes room for the bytes, draining the buffer to the stream or growing it
+	 */
+	private void ensure(int bytes) throws IOException {
+		if (count + bytes <= buffer.length) {
+			return;
+		}
+		if (out != null) {
+			flushBuffer();
+		}
+		if (count + bytes > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + bytes));
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		out.write(buffer, 0, count);
+		flushed += count;
+		count = 0;
+	}
+}
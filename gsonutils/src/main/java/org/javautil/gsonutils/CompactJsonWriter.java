@@ -0,0 +1,134 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Dense JsonWriter that starts each array element on a new line when the
+ * previous element was an object.
+ *
+ * The newline is inserted structurally, right after the comma separating the
+ * elements, so string values are never altered and the output is written
+ * once.
+ *
+ * @author jjs
+ *
+ */
+final class CompactJsonWriter extends JsonWriter {
+
+	/**
+	 * Passes everything through, inserting a newline after the comma that
+	 * follows an object closed inside an array.
+	 */
+	private static final class NewlineWriter extends Writer {
+		private final Writer out;
+
+		/** set when an array element object has just been closed */
+		private boolean pendingNewline;
+
+		NewlineWriter(Writer out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			out.write(c);
+			if (pendingNewline) {
+				pendingNewline = false;
+				if (c == ',') {
+					out.write('\n');
+				}
+			}
+		}
+
+		@Override
+		public void write(char[] buffer, int offset, int length) throws IOException {
+			if (pendingNewline && length > 0) {
+				write(buffer[offset]);
+				offset++;
+				length--;
+			}
+			out.write(buffer, offset, length);
+		}
+
+		@Override
+		public void write(String text, int offset, int length) throws IOException {
+			if (pendingNewline && length > 0) {
+				write(text.charAt(offset));
+				offset++;
+				length--;
+			}
+			out.write(text, offset, length);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+	private final NewlineWriter out;
+
+	/** for each open scope, true if it is an array */
+	private boolean[] arrayScopes = new boolean[32];
+
+	private int depth;
+
+	/**
+	 * @param out receives the JSON
+	 */
+	CompactJsonWriter(Writer out) {
+		this(new NewlineWriter(out));
+	}
+
+	private CompactJsonWriter(NewlineWriter out) {
+		super(out);
+		this.out = out;
+	}
+
+	private void push(boolean isArray) {
+		if (depth == arrayScopes.length) {
+			arrayScopes = Arrays.copyOf(arrayScopes, depth * 2);
+		}
+		arrayScopes[depth++] = isArray;
+	}
+
+	@Override
+	public JsonWriter beginArray() throws IOException {
+		super.beginArray();
+		push(true);
+		return this;
+	}
+
+	@Override
+	public JsonWriter endArray() throws IOException {
+		super.endArray();
+		depth--;
+		return this;
+	}
+
+	@Override
+	public JsonWriter beginObject() throws IOException {
+		super.beginObject();
+		push(false);
+		return this;
+	}
+
+	@Override
+	public JsonWriter endObject() throws IOException {
+		super.endObject();
+		depth--;
+		if (depth > 0 && arrayScopes[depth - 1]) {
+			out.pendingNewline = true;
+		}
+		return this;
+	}
+}
@@ -0,0 +1,37 @@
+package org.javautil.gsonutils;
+
+/**
+ * Receives a measurement for each conversion done by {@link GsonUtils}, set with
+ * {@link GsonUtils#setConversionListener(ConversionListener)}.
+ *
+ * Every conversion is measured, including those writing to an Appendable,
+ * Writer or OutputStream, except the lazy streams. Sizes are bytes, text is
+ * counted as its UTF-8 length. The input size of a Reader or stream is not
+ * known.
+ *
+ * Called on the converting thread, so implementations must be thread safe and
+ * fast.
+ *
+ * @author jjs
+ *
+ */
+public interface ConversionListener {
+	/**
+	 * @param method  the name of the GsonUtils method
+	 * @param type    the class serialized or deserialized, null when converting
+	 *                documents or serializing null
+	 * @param nanos   the elapsed time
+	 * @param sizeIn  the bytes of the input, -1 if not known
+	 * @param sizeOut the bytes of the output, -1 if not known
+	 */
+	void completed(String method, Class<?> type, long nanos, long sizeIn, long sizeOut);
+
+	/**
+	 * @param method the name of the GsonUtils method
+	 * @param type   the class serialized or deserialized, null when converting
+	 *               documents or serializing null
+	 * @param nanos  the elapsed time until the failure
+	 * @param error  the exception thrown to the caller
+	 */
+	void failed(String method, Class<?> type, long nanos, Throwable error);
+}
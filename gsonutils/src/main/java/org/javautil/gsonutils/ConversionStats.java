@@ -0,0 +1,135 @@
+package org.javautil.gsonutils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts, sizes and a latency histogram with power of two buckets, updated
+ * without locks.
+ *
+ * Thread safe.
+ *
+ * @author jjs
+ *
+ */
+public class ConversionStats implements ConversionStatsMXBean {
+	private static final int BUCKETS = 64;
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder errors = new LongAdder();
+
+	private final LongAdder totalNanos = new LongAdder();
+
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	private final LongAdder sizeIn = new LongAdder();
+
+	private final LongAdder sizeOut = new LongAdder();
+
+	private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+	/**
+	 * Records a completed call
+	 *
+	 * @param nanos   the elapsed time
+	 * @param sizeIn  the size of the input, -1 if not known
+	 * @param sizeOut the size of the output, -1 if not known
+	 */
+	public void completed(long nanos, long sizeIn, long sizeOut) {
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+		histogram.incrementAndGet(bucket(nanos));
+		if (sizeIn > 0) {
+			this.sizeIn.add(sizeIn);
+		}
+		if (sizeOut > 0) {
+			this.sizeOut.add(sizeOut);
+		}
+	}
+
+	/**
+	 * Records a call that threw
+	 */
+	public void failed() {
+		errors.increment();
+	}
+
+	private static int bucket(long nanos) {
+		return nanos <= 0 ? 0 : BUCKETS - Long.numberOfLeadingZeros(nanos);
+	}
+
+	@Override
+	public long getCount() {
+		return count.sum();
+	}
+
+	@Override
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	@Override
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	@Override
+	public double getMeanMicros() {
+		final var n = count.sum();
+		return n == 0 ? 0 : totalNanos.sum() / 1000.0 / n;
+	}
+
+	@Override
+	public double getMaxMicros() {
+		return maxNanos.get() / 1000.0;
+	}
+
+	@Override
+	public double getP50Micros() {
+		return percentileMicros(0.5);
+	}
+
+	@Override
+	public double getP99Micros() {
+		return percentileMicros(0.99);
+	}
+
+	private double percentileMicros(double fraction) {
+		final var buckets = getLatencyHistogram();
+		var total = 0L;
+		for (final var n : buckets) {
+			total += n;
+		}
+		final var rank = (long) Math.ceil(total * fraction);
+		var seen = 0L;
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if (seen >= rank && seen > 0) {
+				return Math.scalb(1.0, i) / 1000.0;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public long[] getLatencyHistogram() {
+		final var buckets = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets[i] = histogram.get(i);
+		}
+		return buckets;
+	}
+
+	@Override
+	public long getSizeIn() {
+		return sizeIn.sum();
+	}
+
+	@Override
+	public long getSizeOut() {
+		return sizeOut.sum();
+	}
+}
@@ -0,0 +1,62 @@
+package org.javautil.gsonutils;
+
+/**
+ * The statistics of one GsonUtils method and target class, as published by
+ * {@link JmxConversionListener}.
+ *
+ * @author jjs
+ *
+ */
+public interface ConversionStatsMXBean {
+	/**
+	 * @return the number of completed calls
+	 */
+	long getCount();
+
+	/**
+	 * @return the number of calls that threw
+	 */
+	long getErrors();
+
+	/**
+	 * @return the time spent in completed calls
+	 */
+	long getTotalNanos();
+
+	/**
+	 * @return the mean latency of completed calls
+	 */
+	double getMeanMicros();
+
+	/**
+	 * @return the longest completed call
+	 */
+	double getMaxMicros();
+
+	/**
+	 * @return the median latency, the upper bound of its histogram bucket
+	 */
+	double getP50Micros();
+
+	/**
+	 * @return the 99th percentile latency, the upper bound of its histogram
+	 *         bucket
+	 */
+	double getP99Micros();
+
+	/**
+	 * @return the number of calls by latency, bucket i counts calls shorter than
+	 *         2^i nanoseconds and at least 2^(i-1)
+	 */
+	long[] getLatencyHistogram();
+
+	/**
+	 * @return the total known input size in bytes
+	 */
+	long getSizeIn();
+
+	/**
+	 * @return the total known output size in bytes
+	 */
+	long getSizeOut();
+}
@@ -0,0 +1,92 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Forwards to a Writer and counts the UTF-8 length of what is written, so
+ * conversions to a stream report their size in bytes like those returning
+ * bytes do. Only used while a {@link ConversionListener} is set.
+ *
+ * Not thread safe.
+ *
+ * @author jjs
+ *
+ */
+final class CountingWriter extends Writer {
+	private final Writer out;
+
+	private long bytes;
+
+	/**
+	 * @param out receives the characters, flushed and closed with this writer
+	 */
+	CountingWriter(Writer out) {
+		this.out = out;
+	}
+
+	/**
+	 * @return the UTF-8 length of the characters written
+	 */
+	long getBytes() {
+		return bytes;
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		bytes += utf8Length((char) c);
+		out.write(c);
+	}
+
+	@Override
+	public void write(char[] buffer, int offset, int length) throws IOException {
+		for (int i = offset; i < offset + length; i++) {
+			bytes += utf8Length(buffer[i]);
+		}
+		out.write(buffer, offset, length);
+	}
+
+	@Override
+	public void write(String text, int offset, int length) throws IOException {
+		bytes += utf8Length(text, offset, offset + length);
+		out.write(text, offset, length);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * @return the number of bytes the text takes in UTF-8, -1 for null
+	 */
+	static long utf8Length(CharSequence text) {
+		return text == null ? -1 : utf8Length(text, 0, text.length());
+	}
+
+	private static long utf8Length(CharSequence text, int start, int end) {
+		long length = 0;
+		for (int i = start; i < end; i++) {
+			length += utf8Length(text.charAt(i));
+		}
+		return length;
+	}
+
+	/**
+	 * @return the bytes of the character, a surrogate is half of a four byte pair
+	 */
+	private static int utf8Length(char c) {
+		if (c < 0x80) {
+			return 1;
+		}
+		if (c < 0x800 || Character.isSurrogate(c)) {
+			return 2;
+		}
+		return 3;
+	}
+}
@@ -0,0 +1,168 @@
+package org.javautil.gsonutils;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * The adapters for classes that Gson cannot otherwise serialize, created once
+ * and shared by every mapper.
+ *
+ * Each adapter applies to its exact class as
+ * {@link com.google.gson.GsonBuilder#registerTypeAdapter(java.lang.reflect.Type, Object)}
+ * does. The adapters are named classes rather than lambdas so no hidden
+ * classes are spun at startup and all of them can be kept in a CDS archive.
+ *
+ * @author jjs
+ *
+ */
+final class DefaultTypeAdapterFactory implements TypeAdapterFactory {
+	static final DefaultTypeAdapterFactory INSTANCE = new DefaultTypeAdapterFactory();
+
+	private final Map<Class<?>, TypeAdapter<?>> adapters = new HashMap<>();
+
+	private DefaultTypeAdapterFactory() {
+		put(BigDecimal.class, BigDecimalCodec.QUOTED);
+		put(ZonedDateTime.class, new ZonedDateTimeAdapter());
+		put(OffsetDateTime.class, new OffsetDateTimeAdapter());
+		put(LocalDateTime.class, new LocalDateTimeAdapter());
+		put(LocalDate.class, new LocalDateAdapter());
+		put(Instant.class, new InstantAdapter());
+		put(LocalTime.class, new LocalTimeAdapter());
+		put(File.class, new FileAdapter());
+		put(SimpleDateFormat.class, new SimpleDateFormatAdapter());
+		put(Timestamp.class, new TimestampAdapter());
+	}
+
+	private <T> void put(Class<T> clazz, TypeAdapter<T> adapter) {
+		adapters.put(clazz, adapter);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+		return (TypeAdapter<T>) adapters.get(type.getType());
+	}
+
+	private static final class ZonedDateTimeAdapter extends StringTypeAdapter<ZonedDateTime> {
+		@Override
+		protected ZonedDateTime parse(String text) {
+			return IsoTime.parseZonedDateTime(text);
+		}
+
+		@Override
+		protected String format(ZonedDateTime value) {
+			return IsoTime.format(value);
+		}
+	}
+
+	private static final class OffsetDateTimeAdapter extends StringTypeAdapter<OffsetDateTime> {
+		@Override
+		protected OffsetDateTime parse(String text) {
+			return IsoTime.parseOffsetDateTime(text);
+		}
+
+		@Override
+		protected String format(OffsetDateTime value) {
+			return IsoTime.format(value);
+		}
+	}
+
+	private static final class LocalDateTimeAdapter extends StringTypeAdapter<LocalDateTime> {
+		@Override
+		protected LocalDateTime parse(String text) {
+			return IsoTime.parseLocalDateTime(text);
+		}
+
+		@Override
+		protected String format(LocalDateTime value) {
+			return IsoTime.format(value);
+		}
+	}
+
+	private static final class LocalDateAdapter extends StringTypeAdapter<LocalDate> {
+		@Override
+		protected LocalDate parse(String text) {
+			return IsoTime.parseLocalDate(text);
+		}
+
+		@Override
+		protected String format(LocalDate value) {
+			return IsoTime.format(value);
+		}
+	}
+
+	private static final class InstantAdapter extends StringTypeAdapter<Instant> {
+		@Override
+		protected Instant parse(String text) {
+			return IsoTime.parseInstant(text);
+		}
+
+		@Override
+		protected String format(Instant value) {
+			return IsoTime.format(value);
+		}
+	}
+
+	private static final class LocalTimeAdapter extends StringTypeAdapter<LocalTime> {
+		@Override
+		protected LocalTime parse(String text) {
+			return IsoTime.parseLocalTime(text);
+		}
+
+		@Override
+		protected String format(LocalTime value) {
+			return IsoTime.format(value);
+		}
+	}
+
+	private static final class FileAdapter extends StringTypeAdapter<File> {
+		@Override
+		protected File parse(String text) {
+			return new File(text);
+		}
+
+		@Override
+		protected String format(File value) {
+			return value.toString();
+		}
+	}
+
+	private static final class SimpleDateFormatAdapter extends StringTypeAdapter<SimpleDateFormat> {
+		@Override
+		protected SimpleDateFormat parse(String text) {
+			return new SimpleDateFormat(text);
+		}
+
+		@Override
+		protected String format(SimpleDateFormat value) {
+			return value.toPattern();
+		}
+	}
+
+	private static final class TimestampAdapter extends StringTypeAdapter<Timestamp> {
+		@Override
+		protected Timestamp parse(String text) {
+			return Timestamp.valueOf(text);
+		}
+
+		@Override
+		protected String format(Timestamp value) {
+			return value.toString();
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.internal.LazilyParsedNumber;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes points in time as a JSON number of seconds since 1970-01-01T00:00:00Z
+ * with up to nine fraction digits, {@code 1650017730.123456789}, for
+ * {@link MapperOption#EPOCH_TIMES}. Reads that number or the text the default
+ * adapters write.
+ *
+ * The number is exact to the nanosecond and independent of the default time
+ * zone, unlike {@link Timestamp#toString()}. A LocalDateTime is counted as if
+ * it were UTC.
+ *
+ * @author jjs
+ *
+ * @param <T> the type being marshalled
+ */
+abstract class EpochCodec<T> extends TypeAdapter<T> {
+	static final EpochCodec<Instant> INSTANT = new InstantCodec();
+
+	static final EpochCodec<LocalDateTime> LOCAL_DATE_TIME = new LocalDateTimeCodec();
+
+	static final EpochCodec<Timestamp> TIMESTAMP = new TimestampCodec();
+
+	private static final int NANOS_PER_SECOND = 1_000_000_000;
+
+	/** seconds with more digits could overflow, they are parsed as BigDecimal */
+	private static final int MAX_FAST_DIGITS = 18;
+
+	protected abstract Instant toInstant(T value);
+
+	protected abstract T fromInstant(Instant instant);
+
+	/**
+	 * @param text the form the default adapter writes
+	 */
+	protected abstract T parse(String text);
+
+	@Override
+	public void write(JsonWriter out, T value) throws IOException {
+		if (value == null) {
+			out.nullValue();
+		} else {
+			out.value(new LazilyParsedNumber(format(toInstant(value))));
+		}
+	}
+
+	@Override
+	public T read(JsonReader in) throws IOException {
+		switch (in.peek()) {
+		case NULL:
+			in.nextNull();
+			return null;
+		case NUMBER:
+			final var text = in.nextString();
+			try {
+				return fromInstant(parseSeconds(text));
+			} catch (IllegalArgumentException | ArithmeticException | DateTimeException e) {
+				throw new JsonSyntaxException("Expected epoch seconds but was " + text + " at path " + in.getPath(),
+						e);
+			}
+		case STRING:
+			return parse(in.nextString());
+		default:
+			throw new JsonSyntaxException("Expected a time but was " + in.peek() + " at path " + in.getPath());
+		}
+	}
+
+	/**
+	 * @return seconds.nanos, the fraction without trailing zeros
+	 */
+	static String format(Instant instant) {
+		var seconds = instant.getEpochSecond();
+		var nanos = instant.getNano();
+		final var buffer = new StringBuilder(32);
+		if (seconds < 0 && nanos > 0) {
+			// -1.25 is second -2 plus 0.75
+			buffer.append('-').append(-(seconds + 1));
+			nanos = NANOS_PER_SECOND - nanos;
+		} else {
+			buffer.append(seconds);
+		}
+		if (nanos > 0) {
+			buffer.append('.');
+			for (int divisor = NANOS_PER_SECOND / 10; nanos > 0; divisor /= 10) {
+				buffer.append((char) ('0' + nanos / divisor));
+				nanos %= divisor;
+			}
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * @param text a JSON number of seconds
+	 * @return the instant
+	 * @throws NumberFormatException if not a number
+	 * @throws ArithmeticException   if finer than nanoseconds
+	 */
+	static Instant parseSeconds(String text) {
+		final var length = text.length();
+		final var negative = length > 0 && text.charAt(0) == '-';
+		var index = negative ? 1 : 0;
+		long seconds = 0;
+		final var integerStart = index;
+		for (; index < length && index - integerStart < MAX_FAST_DIGITS; index++) {
+			final var digit = text.charAt(index) - '0';
+			if (digit < 0 || digit > 9) {
+				break;
+			}
+			seconds = seconds * 10 + digit;
+		}
+		var nanos = 0;
+		if (index > integerStart && index < length && text.charAt(index) == '.') {
+			final var fractionStart = ++index;
+			var scale = NANOS_PER_SECOND;
+			for (; index < length && index - fractionStart < 9; index++) {
+				final var digit = text.charAt(index) - '0';
+				if (digit < 0 || digit > 9) {
+					break;
+				}
+				scale /= 10;
+				nanos += digit * scale;
+			}
+		}
+		if (index == length && index > integerStart && text.charAt(length - 1) != '.') {
+			return negative ? Instant.ofEpochSecond(-seconds, -nanos) : Instant.ofEpochSecond(seconds, nanos);
+		}
+		// exponents, long fractions and large values
+		final var decimal = new BigDecimal(text);
+		final var whole = decimal.setScale(0, RoundingMode.FLOOR);
+		return Instant.ofEpochSecond(whole.longValueExact(),
+				decimal.subtract(whole).movePointRight(9).intValueExact());
+	}
+
+	private static final class InstantCodec extends EpochCodec<Instant> {
+		@Override
+		protected Instant toInstant(Instant value) {
+			return value;
+		}
+
+		@Override
+		protected Instant fromInstant(Instant instant) {
+			return instant;
+		}
+
+		@Override
+		protected Instant parse(String text) {
+			return IsoTime.parseInstant(text);
+		}
+	}
+
+	private static final class LocalDateTimeCodec extends EpochCodec<LocalDateTime> {
+		@Override
+		protected Instant toInstant(LocalDateTime value) {
+			return value.toInstant(ZoneOffset.UTC);
+		}
+
+		@Override
+		protected LocalDateTime fromInstant(Instant instant) {
+			return LocalDateTime.ofEpochSecond(instant.getEpochSecond(), instant.getNano(), ZoneOffset.UTC);
+		}
+
+		@Override
+		protected LocalDateTime parse(String text) {
+			return IsoTime.parseLocalDateTime(text);
+		}
+	}
+
+	private static final class TimestampCodec extends EpochCodec<Timestamp> {
+		@Override
+		protected Instant toInstant(Timestamp value) {
+			return value.toInstant();
+		}
+
+		@Override
+		protected Timestamp fromInstant(Instant instant) {
+			return Timestamp.from(instant);
+		}
+
+		@Override
+		protected Timestamp parse(String text) {
+			return Timestamp.valueOf(text);
+		}
+	}
+}
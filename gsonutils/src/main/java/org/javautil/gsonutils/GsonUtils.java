@@ -1,25 +1,43 @@
 package org.javautil.gsonutils;
 
-import java.io.File;
-import java.math.BigDecimal;
-import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.OffsetDateTime;
-import java.time.ZonedDateTime;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.LinkedHashMap;
-
-import org.yaml.snakeyaml.Yaml;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonParser;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializer;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.internal.Primitives;
+import com.google.gson.internal.Streams;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
 
 /**
  *
@@ -30,53 +48,236 @@ public class GsonUtils {
 
 	public static final String version = "May 28, 2022 11:50:53 PM";
 	/**
-	 * This is the only method that escapes html.
+	 * The mappers used by the methods of this class, each is created on first use
+	 */
+	public static final MapperRegistry registry = new MapperRegistry();
+
+	/**
+	 * The mappers that were public fields of GsonUtils, replace
+	 * {@code GsonUtils.mapper} with {@code GsonUtils.LegacyMappers.mapper} until
+	 * the calls move to {@link GsonUtils#mapper()} and the other accessors.
+	 *
+	 * The fields hold the mappers as they were when this class was first used, so
+	 * they do not see adapters registered afterwards. Kept apart so that
+	 * initializing GsonUtils creates no mapper.
+	 *
+	 * @deprecated use the accessors of GsonUtils
+	 */
+	@Deprecated
+	public static final class LegacyMappers {
+		/**
+		 * @deprecated use {@link GsonUtils#htmlMapper()}
+		 */
+		@Deprecated
+		public static final Gson htmlMapper = GsonUtils.htmlMapper();
+
+		/**
+		 * @deprecated use {@link GsonUtils#mapper()}
+		 */
+		@Deprecated
+		public static final Gson mapper = GsonUtils.mapper();
+
+		/**
+		 * @deprecated use {@link GsonUtils#nullMapper()}
+		 */
+		@Deprecated
+		public static final Gson nullMapper = GsonUtils.nullMapper();
+
+		/**
+		 * @deprecated use {@link GsonUtils#nullPrettyMapper()}
+		 */
+		@Deprecated
+		public static final Gson nullPrettyMapper = GsonUtils.nullPrettyMapper();
+
+		/**
+		 * @deprecated use {@link GsonUtils#prettyMapper()}
+		 */
+		@Deprecated
+		public static final Gson prettyMapper = GsonUtils.prettyMapper();
+
+		/**
+		 * @deprecated use {@link GsonUtils#prettyTolerantMapper()}
+		 */
+		@Deprecated
+		public static final Gson prettyTolerantMapper = GsonUtils.prettyTolerantMapper();
+
+		private LegacyMappers() {
+		}
+	}
+
+	private static volatile ConversionListener conversionListener;
+
+	/** 
+	 * prevent constructions
+	 */
+	private GsonUtils() {
+	}
+
+	/**
+	 * Measures the conversions, for instance with a {@link JmxConversionListener}.
+	 * When no listener is set a call only pays for reading this field.
+	 * @param listener receives a measurement per conversion, null to stop measuring
+	 */
+	public static void setConversionListener(ConversionListener listener) {
+		conversionListener = listener;
+	}
+
+	/**
+	 * @return the listener receiving measurements, null if not measuring
+	 */
+	public static ConversionListener getConversionListener() {
+		return conversionListener;
+	}
+
+	/**
+	 * This is the only mapper that escapes html.
 	 * <ul>
 	 * <li>pretty - no
-	 * <li>escapeHtml - no
+	 * <li>escapeHtml - yes
 	 * </ul>
 	 * 
-	 * @param o
-	 * @return
+	 * @return the mapper
 	 */
-	public static final Gson htmlMapper = getGsonBuilderEscapeHtml().create();
+	public static Gson htmlMapper() {
+		return registry.get(MapperOption.ESCAPE_HTML);
+	}
 
-	public static final Gson mapper = getGsonBuilder().create();
+	/**
+	 * @return the dense mapper, drops nulls
+	 */
+	public static Gson mapper() {
+		return registry.get();
+	}
+
+	/**
+	 * @return the dense mapper that writes Instant, LocalDateTime and Timestamp
+	 *         as epoch seconds, drops nulls
+	 * @see MapperOption#EPOCH_TIMES
+	 */
+	public static Gson epochMapper() {
+		return registry.get(MapperOption.EPOCH_TIMES);
+	}
 
-	public static final Gson nullMapper = getGsonBuilder().serializeNulls().create();
+	/**
+	 * @return the dense mapper for CBOR, drops nulls
+	 * @see MapperOption#CBOR
+	 */
+	public static Gson cborMapper() {
+		return registry.get(MapperOption.CBOR);
+	}
 
-	public static final Gson nullPrettyMapper = getGsonBuilder().serializeNulls().setPrettyPrinting().create();
+	/**
+	 * @return the dense mapper that serializes nulls
+	 */
+	public static Gson nullMapper() {
+		return registry.get(MapperOption.NULLS);
+	}
 
-	public final static Gson prettyMapper = getGsonBuilder().setPrettyPrinting().create();
+	/**
+	 * @return the pretty mapper that serializes nulls
+	 */
+	public static Gson nullPrettyMapper() {
+		return registry.get(MapperOption.NULLS, MapperOption.PRETTY);
+	}
+
+	/**
+	 * @return the pretty mapper, drops nulls
+	 */
+	public static Gson prettyMapper() {
+		return registry.get(MapperOption.PRETTY);
+	}
 
 	/**
 	 * <ul>
 	 * <li>pretty - yes
-	 * <li>escapeHtml - yes
+	 * <li>escapeHtml - no
 	 * <li>allows NaN in numbers - yes
 	 * </ul>
 	 * 
-	 * @param o
-	 * @return
+	 * @return the mapper
+	 */
+	public static Gson prettyTolerantMapper() {
+		return registry.get(MapperOption.PRETTY, MapperOption.SPECIAL_FLOATS);
+	}
+	/**
+	 * @param jsonString
+	 * @return prettyPrint of the input JSON
+	 */
+	public static String jsonToPrettyJson(String jsonString) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, "jsonToPrettyJson", null, length(jsonString),
+					() -> prettyJsonString(jsonString), GsonUtils::length);
+		}
+		return prettyJsonString(jsonString);
+	}
+
+	private static String prettyJsonString(String jsonString) {
+		final var buffer = JsonBuffer.acquire();
+		try {
+			prettyJson(new StringReader(jsonString), buffer);
+			return buffer.toString();
+		} finally {
+			buffer.release();
+		}
+	}
+
+	/**
+	 * Re-indents the JSON token by token, memory use does not depend on the size
+	 * of the document.
+	 * 
+	 * @param json the JSON to be pretty printed, not closed
+	 * @param out  receives the pretty printed JSON, flushed but not closed
 	 */
+	public static void jsonToPrettyJson(Reader json, Writer out) {
+		jsonToPrettyJson(json, out, -1);
+	}
 
-	public final static Gson prettyTolerantMapper = getGsonBuilder().setPrettyPrinting()
-			.serializeSpecialFloatingPointValues().create();
+	private static void jsonToPrettyJson(Reader json, Writer out, long sizeIn) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			measure(listener, "jsonToPrettyJson", null, sizeIn, out, writer -> prettyJson(json, writer));
+		} else {
+			prettyJson(json, out);
+		}
+	}
 
-	private static final Yaml yaml = new Yaml();
+	private static void prettyJson(Reader json, Writer out) {
+		try {
+			final var writer = prettyMapper().newJsonWriter(out);
+			writer.setLenient(true);
+			copyDocument(json, writer);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
 
-	/** 
-	 * prevent constructions
+	/**
+	 * Re-indents UTF-8 JSON token by token.
+	 * 
+	 * @param json the JSON to be pretty printed, not closed
+	 * @param out  receives the pretty printed JSON, flushed but not closed
 	 */
-	private GsonUtils() {
+	public static void jsonToPrettyJson(InputStream json, OutputStream out) {
+		final var writer = utf8Writer(out);
+		jsonToPrettyJson(utf8Reader(json), writer);
+		flush(writer);
 	}
+
 	/**
-	 * @param jsonString
-	 * @return prettyPrint of the input JSON
+	 * Pretty prints a UTF-8 JSON file into another file without loading either
+	 * into memory.
+	 * 
+	 * @param json the JSON file to be pretty printed
+	 * @param out  the file to be written, replaced if it exists
 	 */
-	public static String jsonToPrettyJson(String jsonString) {
-		final var element = JsonParser.parseString(jsonString);
-		return prettyMapper.toJson(element);
+	public static void jsonToPrettyJson(Path json, Path out) {
+		try (var reader = Files.newBufferedReader(json, StandardCharsets.UTF_8);
+				var writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+			jsonToPrettyJson(reader, writer, conversionListener != null ? Files.size(json) : -1);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
 	}
 	
 	/**
@@ -85,7 +286,55 @@ public class GsonUtils {
 	 * @return json representation
 	 */
 	public static String toHtmlJson(Object o) {
-		return htmlMapper.toJson(o);
+		return toJsonString("toHtmlJson", htmlMapper(), o);
+	}
+
+	/**
+	 * For use in json to be used in HTML, escapes HTML
+	 * @param o the object to be serialized
+	 * @param out receives the json, not flushed or closed
+	 */
+	public static void toHtmlJson(Object o, Appendable out) {
+		toJson("toHtmlJson", htmlMapper(), o, out);
+	}
+
+	/**
+	 * For use in json to be used in HTML, escapes HTML
+	 * @param o the object to be serialized
+	 * @param out receives the json encoded as UTF-8, flushed but not closed
+	 */
+	public static void toHtmlJson(Object o, OutputStream out) {
+		toJson("toHtmlJson", htmlMapper(), o, out);
+	}
+
+	/**
+	 * For use in json to be used in HTML, escapes HTML
+	 * @param o the object to be serialized
+	 * @param out receives the json in the charset of the stream, flushed but not closed
+	 */
+	public static void toHtmlJson(Object o, PrintStream out) {
+		toHtmlJson(o, (Appendable) out);
+		out.flush();
+	}
+
+	/**
+	 * For use in json to be used in HTML, escapes HTML
+	 * @param o the object to be serialized
+	 * @return the json encoded as UTF-8
+	 */
+	public static byte[] toHtmlJsonBytes(Object o) {
+		return toJsonBytes("toHtmlJsonBytes", htmlMapper(), o);
+	}
+
+	/**
+	 * For use in json to be used in HTML, escapes HTML
+	 * @param o the object to be serialized
+	 * @param out receives the json encoded as UTF-8 from its position, which is advanced
+	 * @return the number of bytes written
+	 * @throws BufferOverflowException if the json does not fit, the position is then unchanged
+	 */
+	public static int toHtmlJson(Object o, ByteBuffer out) {
+		return toJson("toHtmlJson", htmlMapper(), o, out);
 	}
 
 	/**
@@ -94,18 +343,130 @@ public class GsonUtils {
 	 * @return json representation
 	 */
 	public static String toJson(Object o) {
-		return mapper.toJson(o);
+		return toJsonString("toJson", mapper(), o);
+	}
+
+	/**
+	 * Converts the object to a dense json
+	 * @param o the object to be serialized
+	 * @param out receives the json, not flushed or closed
+	 */
+	public static void toJson(Object o, Appendable out) {
+		toJson("toJson", mapper(), o, out);
+	}
+
+	/**
+	 * Converts the object to a dense json
+	 * @param o the object to be serialized
+	 * @param out receives the json encoded as UTF-8, flushed but not closed
+	 */
+	public static void toJson(Object o, OutputStream out) {
+		toJson("toJson", mapper(), o, out);
+	}
+
+	/**
+	 * Converts the object to a dense json
+	 * @param o the object to be serialized
+	 * @param out receives the json in the charset of the stream, flushed but not closed
+	 */
+	public static void toJson(Object o, PrintStream out) {
+		toJson(o, (Appendable) out);
+		out.flush();
+	}
+
+	/**
+	 * Converts the object to a dense json encoded as UTF-8, in one pass without
+	 * creating a String
+	 * @param o the object to be serialized
+	 * @return the json encoded as UTF-8
+	 */
+	public static byte[] toJsonBytes(Object o) {
+		return toJsonBytes("toJsonBytes", mapper(), o);
+	}
+
+	/**
+	 * Converts the object to a dense json encoded as UTF-8, in one pass without
+	 * creating a String
+	 * @param o the object to be serialized
+	 * @param out receives the json encoded as UTF-8 from its position, which is advanced
+	 * @return the number of bytes written
+	 * @throws BufferOverflowException if the json does not fit, the position is then unchanged
+	 */
+	public static int toJson(Object o, ByteBuffer out) {
+		return toJson("toJson", mapper(), o, out);
+	}
+
+	/**
+	 * Converts the object with the mapper of the {@link #registry} for the options
+	 * @param o the object to be serialized
+	 * @param options the settings, {@link MapperOption#COMPACT} writes as
+	 * {@link #toJsonCompact(Object)} unless {@link MapperOption#PRETTY} is given
+	 * @return json representation
+	 */
+	public static String toJson(Object o, MapperOption... options) {
+		final var gson = registry.get(options);
+		if (!isCompact(options)) {
+			return toJsonString("toJson", gson, o);
+		}
+		return toJsonCompactString("toJson", gson, o);
+	}
+
+	private static boolean isCompact(MapperOption... options) {
+		var compact = false;
+		for (final var option : options) {
+			if (option == MapperOption.PRETTY) {
+				return false;
+			}
+			compact |= option == MapperOption.COMPACT;
+		}
+		return compact;
 	}
 
 	/**
 	 * Converts the object to a compact pretty json 
-	 * ArrayList entries are separated by line but unlike
+	 * objects in arrays are followed by a new line but unlike
 	 * pretty map keys and values are not no separate lines.
 	 * @param o the object to be serialized
 	 * @return json representation
 	 */
 	public static String toJsonCompact(Object o) {
-		return mapper.toJson(o).replaceAll("\\}\\,", "},\n");
+		return toJsonCompactString("toJsonCompact", mapper(), o);
+	}
+
+	/**
+	 * Converts the object to a compact pretty json
+	 * @param o the object to be serialized
+	 * @param out receives the json, not flushed or closed
+	 */
+	public static void toJsonCompact(Object o, Appendable out) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			measure(listener, "toJsonCompact", typeOf(o), -1, Streams.writerForAppendable(out),
+					writer -> toJsonCompact(mapper(), o, writer));
+		} else {
+			toJsonCompact(mapper(), o, out);
+		}
+	}
+
+	/**
+	 * Converts the object to a compact pretty json
+	 * @param o the object to be serialized
+	 * @param out receives the json encoded as UTF-8, flushed but not closed
+	 */
+	public static void toJsonCompact(Object o, OutputStream out) {
+		final var writer = utf8Writer(out);
+		toJsonCompact(o, writer);
+		flush(writer);
+	}
+
+	/**
+	 * Converts the object to a compact pretty json
+	 * @param o the object to be serialized
+	 * @param out receives the json in the charset of the stream, flushed but not closed
+	 */
+	public static void toJsonCompact(Object o, PrintStream out) {
+		toJsonCompact(o, (Appendable) out);
+		out.flush();
 	}
 
 
@@ -116,7 +477,35 @@ public class GsonUtils {
 	 * @return json representation
 	 */
 	public static String toPrettyJsonTolerant(Object o) {
-		return prettyTolerantMapper.toJson(o);
+		return toJsonString("toPrettyJsonTolerant", prettyTolerantMapper(), o);
+	}
+
+	/**
+	 * Converts the object to a pretty json allows NaN double and float values
+	 * @param o the object to be serialized
+	 * @param out receives the json, not flushed or closed
+	 */
+	public static void toPrettyJsonTolerant(Object o, Appendable out) {
+		toJson("toPrettyJsonTolerant", prettyTolerantMapper(), o, out);
+	}
+
+	/**
+	 * Converts the object to a pretty json allows NaN double and float values
+	 * @param o the object to be serialized
+	 * @param out receives the json encoded as UTF-8, flushed but not closed
+	 */
+	public static void toPrettyJsonTolerant(Object o, OutputStream out) {
+		toJson("toPrettyJsonTolerant", prettyTolerantMapper(), o, out);
+	}
+
+	/**
+	 * Converts the object to a pretty json allows NaN double and float values
+	 * @param o the object to be serialized
+	 * @param out receives the json in the charset of the stream, flushed but not closed
+	 */
+	public static void toPrettyJsonTolerant(Object o, PrintStream out) {
+		toPrettyJsonTolerant(o, (Appendable) out);
+		out.flush();
 	}
 
 //	/**
@@ -126,7 +515,7 @@ public class GsonUtils {
 //	 * @return json representation
 //	 */
 //	public static String toPrettyJsonWithNulls(Object o) {
-//		return nullPrettyMapper.toJson(o);
+//		return toJsonString(nullPrettyMapper(), o);
 //	}
 
 	/**
@@ -136,7 +525,81 @@ public class GsonUtils {
 	 * @return json representation
 	 */
 	public static String toJsonWithNulls(Object o) {
-		return nullMapper.toJson(o);
+		return toJsonString("toJsonWithNulls", nullMapper(), o);
+	}
+
+	/**
+	 * Converts the object to a dense json will serialize null values
+	 * @param o the object to be serialized
+	 * @param out receives the json, not flushed or closed
+	 */
+	public static void toJsonWithNulls(Object o, Appendable out) {
+		toJson("toJsonWithNulls", nullMapper(), o, out);
+	}
+
+	/**
+	 * Converts the object to a dense json will serialize null values
+	 * @param o the object to be serialized
+	 * @param out receives the json encoded as UTF-8, flushed but not closed
+	 */
+	public static void toJsonWithNulls(Object o, OutputStream out) {
+		toJson("toJsonWithNulls", nullMapper(), o, out);
+	}
+
+	/**
+	 * Converts the object to a dense json will serialize null values
+	 * @param o the object to be serialized
+	 * @param out receives the json in the charset of the stream, flushed but not closed
+	 */
+	public static void toJsonWithNulls(Object o, PrintStream out) {
+		toJsonWithNulls(o, (Appendable) out);
+		out.flush();
+	}
+
+	/**
+	 * Writes the objects as JSON Lines (NDJSON), one dense json per line
+	 * @param objects the objects to be serialized
+	 * @param out receives the lines, flushed but not closed
+	 */
+	public static void toJsonLines(Iterable<?> objects, Writer out) {
+		toJsonLines("toJsonLines", mapper(), objects, out);
+	}
+
+	/**
+	 * Writes the objects as a UTF-8 JSON Lines (NDJSON) file, one dense json per line
+	 * @param objects the objects to be serialized
+	 * @param out the file to be written, replaced if it exists
+	 */
+	public static void toJsonLines(Iterable<?> objects, Path out) {
+		try (var writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+			toJsonLines("toJsonLines", mapper(), objects, writer);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the objects as JSON Lines (NDJSON), one dense json per line,
+	 * will serialize null values
+	 * @param objects the objects to be serialized
+	 * @param out receives the lines, flushed but not closed
+	 */
+	public static void toJsonLinesWithNulls(Iterable<?> objects, Writer out) {
+		toJsonLines("toJsonLinesWithNulls", nullMapper(), objects, out);
+	}
+
+	private static void toJsonLines(String method, Gson gson, Iterable<?> objects, Writer out) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			measure(listener, method, null, -1, out, writer -> toJsonLines(new JsonLinesWriter(writer, gson), objects));
+		} else {
+			toJsonLines(new JsonLinesWriter(out, gson), objects);
+		}
+	}
+
+	private static void toJsonLines(JsonLinesWriter writer, Iterable<?> objects) {
+		writer.writeAll(objects);
+		flush(writer);
 	}
 
 	
@@ -146,7 +609,18 @@ public class GsonUtils {
 	 * @return json representation
 	 */
 	public static LinkedHashMap<String, Object> toMapFromBean(Object bean) {
-		return toMapFromJson(toJson(bean));
+		return toMap("toMapFromBean", mapper(), bean, null);
+	}
+
+	/**
+	 * Converts bean object to map of name values, sharing equal names and short
+	 * values through the interner
+	 * @param bean the object to be converted
+	 * @param interner per call or shared between calls
+	 * @return map of values
+	 */
+	public static LinkedHashMap<String, Object> toMapFromBean(Object bean, StringInterner interner) {
+		return toMap("toMapFromBean", mapper(), bean, interner);
 	}
 
 	/**
@@ -155,10 +629,44 @@ public class GsonUtils {
 	 * @param o the object to be serialized
 	 * @return json representation
 	 */
-	@SuppressWarnings("unchecked")
 	public static LinkedHashMap<String, Object> toMapFromBeanWithNulls(Object bean) {
-		final var json = nullMapper.toJson(bean);
-		return mapper.fromJson(json, LinkedHashMap.class);
+		return toMap("toMapFromBeanWithNulls", nullMapper(), bean, null);
+	}
+
+	/**
+	 * Walks the bean once with the adapters of the mapper, building the same
+	 * map that parsing its JSON with {@link #toMapFromJson(String)} would.
+	 * 
+	 * @param gson the mapper that determines null handling
+	 * @param bean the object to be converted
+	 * @param interner canonicalizes names and values, null for none
+	 * @return map of values, null if the bean is null
+	 */
+	private static LinkedHashMap<String, Object> toMap(String method, Gson gson, Object bean,
+			StringInterner interner) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, method, typeOf(bean), -1, () -> toMap(gson, bean, interner),
+					GsonUtils::unknownSize);
+		}
+		return toMap(gson, bean, interner);
+	}
+
+	private static LinkedHashMap<String, Object> toMap(Gson gson, Object bean, StringInterner interner) {
+		if (bean == null) {
+			return null;
+		}
+		final var writer = new MapJsonWriter(interner);
+		gson.toJson(bean, bean.getClass(), writer);
+		return toMap(writer.get());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static LinkedHashMap<String, Object> toMap(Object value) {
+		if (value != null && !(value instanceof LinkedHashMap)) {
+			throw new JsonSyntaxException("Expected BEGIN_OBJECT but was " + value.getClass().getName());
+		}
+		return (LinkedHashMap<String, Object>) value;
 	}
 
 	/**
@@ -168,7 +676,117 @@ public class GsonUtils {
 	 */
 	@SuppressWarnings("unchecked")
 	public static LinkedHashMap<String, Object> toMapFromJson(String json) {
-		return mapper.fromJson(json, LinkedHashMap.class);
+		return fromJson("toMapFromJson", json, LinkedHashMap.class);
+	}
+
+	/**
+	 * Converts json to map of name values
+	 * @param json to be deserialized, not closed
+	 * @return map of values 
+	 */
+	@SuppressWarnings("unchecked")
+	public static LinkedHashMap<String, Object> toMapFromJson(Reader json) {
+		return fromJson("toMapFromJson", json, LinkedHashMap.class, -1);
+	}
+
+	/**
+	 * Converts UTF-8 json to map of name values
+	 * @param json to be deserialized, not closed
+	 * @return map of values 
+	 */
+	public static LinkedHashMap<String, Object> toMapFromJson(InputStream json) {
+		return toMapFromJson(utf8Reader(json));
+	}
+
+	/**
+	 * Converts a UTF-8 json file to a map, reading through a memory mapping so
+	 * the text is not copied onto the heap
+	 * @param json the file to be deserialized
+	 * @return the map
+	 */
+	@SuppressWarnings("unchecked")
+	public static LinkedHashMap<String, Object> toMapFromJson(Path json) {
+		try (var reader = new MappedFileReader(json)) {
+			return fromJson("toMapFromJson", reader, LinkedHashMap.class, reader.size());
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	/**
+	 * Converts json to map of name values, sharing equal names and short values
+	 * through the interner so large arrays of rows hold one copy of each name
+	 * @param json to be deserialized
+	 * @param interner per call or shared between calls
+	 * @return map of values
+	 */
+	public static LinkedHashMap<String, Object> toMapFromJson(String json, StringInterner interner) {
+		return toMap("toMapFromJson", new StringReader(json), interner, length(json));
+	}
+
+	/**
+	 * Converts json to map of name values, sharing equal names and short values
+	 * through the interner
+	 * @param json to be deserialized, not closed
+	 * @param interner per call or shared between calls
+	 * @return map of values
+	 */
+	public static LinkedHashMap<String, Object> toMapFromJson(Reader json, StringInterner interner) {
+		return toMap("toMapFromJson", json, interner, -1);
+	}
+
+	/**
+	 * Converts a UTF-8 json file to a map through a memory mapping, sharing equal
+	 * names and short values through the interner
+	 * @param json the file to be deserialized
+	 * @param interner per call or shared between calls
+	 * @return the map
+	 */
+	public static LinkedHashMap<String, Object> toMapFromJson(Path json, StringInterner interner) {
+		try (var reader = new MappedFileReader(json)) {
+			return toMap("toMapFromJson", reader, interner, reader.size());
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	private static LinkedHashMap<String, Object> toMap(String method, Reader json, StringInterner interner,
+			long sizeIn) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, method, LinkedHashMap.class, sizeIn, () -> toMap(json, interner),
+					GsonUtils::unknownSize);
+		}
+		return toMap(json, interner);
+	}
+
+	/**
+	 * Copies the json into a {@link MapJsonWriter}, giving the maps that
+	 * {@code fromJson(json, LinkedHashMap.class)} would
+	 */
+	private static LinkedHashMap<String, Object> toMap(Reader json, StringInterner interner) {
+		final var reader = new JsonReader(json);
+		reader.setLenient(true);
+		final var writer = new MapJsonWriter(interner);
+		writer.setSerializeNulls(true);
+		writer.setLenient(true);
+		try {
+			try {
+				reader.peek();
+			} catch (EOFException e) {
+				// an empty document, as Gson
+				return null;
+			}
+			JsonCopier.copy(reader, writer);
+			if (reader.peek() != JsonToken.END_DOCUMENT) {
+				throw new JsonSyntaxException("JSON document was not fully consumed.");
+			}
+		} catch (MalformedJsonException | IllegalStateException e) {
+			throw new JsonSyntaxException(e);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+		return toMap(writer.get());
 	}
 
 //	/**
@@ -177,7 +795,7 @@ public class GsonUtils {
 //	 * @return map of values 
 //	 */
 //	public static Object toObjectFromJson(String json) {
-//		return mapper.fromJson(json, Object.class);
+//		return mapper().fromJson(json, Object.class);
 //	}
 
 	/**
@@ -187,7 +805,348 @@ public class GsonUtils {
 	 * @return the populated clazz
 	 */
 	public static <T> T toBeanFromJson(String json, Class<T> clazz) {
-		return mapper.fromJson(json, clazz);
+		return fromJson("toBeanFromJson", json, clazz);
+	}
+
+	/**
+	 * Converts json to the specified bean
+	 * @param json to be deserialized, not closed
+	 * @param clazz the type of bean to be returned
+	 * @return the populated clazz
+	 */
+	public static <T> T toBeanFromJson(Reader json, Class<T> clazz) {
+		return fromJson("toBeanFromJson", json, clazz, -1);
+	}
+
+	/**
+	 * Converts UTF-8 json to the specified bean
+	 * @param json to be deserialized, not closed
+	 * @param clazz the type of bean to be returned
+	 * @return the populated clazz
+	 */
+	public static <T> T toBeanFromJson(InputStream json, Class<T> clazz) {
+		return toBeanFromJson(utf8Reader(json), clazz);
+	}
+
+	/**
+	 * Converts UTF-8 json to the specified bean, decoding in one pass without
+	 * creating a String
+	 * @param json to be deserialized
+	 * @param clazz the type of bean to be returned
+	 * @return the populated clazz
+	 */
+	public static <T> T toBeanFromJson(byte[] json, Class<T> clazz) {
+		return toBeanFromJson(ByteBuffer.wrap(json), clazz);
+	}
+
+	/**
+	 * Converts UTF-8 json to the specified bean, decoding in one pass without
+	 * creating a String or copying the bytes
+	 * @param json to be deserialized from its position to its limit, the position
+	 * is advanced
+	 * @param clazz the type of bean to be returned
+	 * @return the populated clazz
+	 */
+	public static <T> T toBeanFromJson(ByteBuffer json, Class<T> clazz) {
+		return fromJson("toBeanFromJson", new Utf8Reader(json), clazz, json.remaining());
+	}
+
+	/**
+	 * Converts a UTF-8 json file to the specified bean, reading through a memory
+	 * mapping so the text is not copied onto the heap, files over 2GB are mapped
+	 * in windows
+	 * @param json the file to be deserialized
+	 * @param clazz the type of bean to be returned
+	 * @return the populated clazz
+	 */
+	public static <T> T toBeanFromJson(Path json, Class<T> clazz) {
+		try (var reader = new MappedFileReader(json)) {
+			return fromJson("toBeanFromJson", reader, clazz, reader.size());
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	/**
+	 * Lazily reads JSON Lines (NDJSON), one bean per line, without loading the
+	 * input
+	 * @param json the lines, closed when the stream is closed
+	 * @param clazz the type of each bean
+	 * @return the beans
+	 */
+	public static <T> Stream<T> toBeansFromJsonLines(Reader json, Class<T> clazz) {
+		return new JsonLinesReader<>(json, clazz).stream();
+	}
+
+	/**
+	 * Lazily reads a UTF-8 JSON Lines (NDJSON) file, one bean per line
+	 * @param json the file
+	 * @param clazz the type of each bean
+	 * @return the beans, close the stream to close the file
+	 */
+	public static <T> Stream<T> toBeansFromJsonLines(Path json, Class<T> clazz) {
+		try {
+			return new JsonLinesReader<>(json, clazz).stream();
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	/**
+	 * Lazily reads the elements of a top level json array one at a time, 
+	 * without loading the array
+	 * @param json the array, closed when the stream is closed
+	 * @param clazz the type of each element
+	 * @return the elements
+	 */
+	public static <T> Stream<T> toBeansFromJsonArray(Reader json, Class<T> clazz) {
+		return new JsonArrayReader<>(json, clazz).stream();
+	}
+
+	/**
+	 * Lazily reads the elements of a top level json array one at a time, 
+	 * without loading the array
+	 * @param json the array, closed when the stream is closed
+	 * @param type the type of each element, for generic element types
+	 * @return the elements
+	 */
+	public static <T> Stream<T> toBeansFromJsonArray(Reader json, TypeToken<T> type) {
+		return new JsonArrayReader<>(json, type).stream();
+	}
+
+	/**
+	 * Lazily reads the elements of the top level json array of a UTF-8 file
+	 * @param json the file
+	 * @param clazz the type of each element
+	 * @return the elements, close the stream to close the file
+	 */
+	public static <T> Stream<T> toBeansFromJsonArray(Path json, Class<T> clazz) {
+		try {
+			return new JsonArrayReader<>(json, clazz).stream();
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	/**
+	 * Lazily reads the elements of the top level json array of a UTF-8 file
+	 * @param json the file
+	 * @param type the type of each element, for generic element types
+	 * @return the elements, close the stream to close the file
+	 */
+	public static <T> Stream<T> toBeansFromJsonArray(Path json, TypeToken<T> type) {
+		try {
+			return new JsonArrayReader<>(json, type).stream();
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	/**
+	 * Converts the value at an RFC 6901 JSON Pointer, such as
+	 * {@code /header/eventTime}, skipping the rest of the document
+	 * @param json to be searched
+	 * @param pointer the value to be converted, "" for the whole document
+	 * @param clazz the type of the value, converted by the registered adapters
+	 * @return the value, null if there is none at the pointer
+	 */
+	public static <T> T extractFromJson(String json, String pointer, Class<T> clazz) {
+		return Primitives.wrap(clazz).cast(extractFromJson(json, Map.of(pointer, clazz)).get(pointer));
+	}
+
+	/**
+	 * Converts the value at an RFC 6901 JSON Pointer, reading no further than the
+	 * end of the value
+	 * @param json to be searched, not closed
+	 * @param pointer the value to be converted, "" for the whole document
+	 * @param clazz the type of the value, converted by the registered adapters
+	 * @return the value, null if there is none at the pointer
+	 */
+	public static <T> T extractFromJson(Reader json, String pointer, Class<T> clazz) {
+		return Primitives.wrap(clazz).cast(extractFromJson(json, Map.of(pointer, clazz)).get(pointer));
+	}
+
+	/**
+	 * Converts the value at an RFC 6901 JSON Pointer of a UTF-8 json file, through
+	 * a memory mapping so the skipped text is never decoded onto the heap
+	 * @param json the file to be searched
+	 * @param pointer the value to be converted, "" for the whole document
+	 * @param clazz the type of the value, converted by the registered adapters
+	 * @return the value, null if there is none at the pointer
+	 */
+	public static <T> T extractFromJson(Path json, String pointer, Class<T> clazz) {
+		return Primitives.wrap(clazz).cast(extractFromJson(json, Map.of(pointer, clazz)).get(pointer));
+	}
+
+	/**
+	 * Converts the values at RFC 6901 JSON Pointers in one pass, skipping the
+	 * subtrees no pointer reaches into and stopping once all are found
+	 * @param json to be searched
+	 * @param pointers the type of the value at each pointer
+	 * @return the value of each pointer found, in the order of pointers
+	 */
+	public static LinkedHashMap<String, Object> extractFromJson(String json, Map<String, ? extends Type> pointers) {
+		return extract("extractFromJson", new StringReader(json), pointers, length(json));
+	}
+
+	/**
+	 * Converts the values at RFC 6901 JSON Pointers in one pass, reading no
+	 * further than the last value found
+	 * @param json to be searched, not closed
+	 * @param pointers the type of the value at each pointer
+	 * @return the value of each pointer found, in the order of pointers
+	 */
+	public static LinkedHashMap<String, Object> extractFromJson(Reader json, Map<String, ? extends Type> pointers) {
+		return extract("extractFromJson", json, pointers, -1);
+	}
+
+	/**
+	 * Converts the values at RFC 6901 JSON Pointers of a UTF-8 json file in one
+	 * pass, through a memory mapping
+	 * @param json the file to be searched
+	 * @param pointers the type of the value at each pointer
+	 * @return the value of each pointer found, in the order of pointers
+	 */
+	public static LinkedHashMap<String, Object> extractFromJson(Path json, Map<String, ? extends Type> pointers) {
+		try (var reader = new MappedFileReader(json)) {
+			return extract("extractFromJson", reader, pointers, reader.size());
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	private static LinkedHashMap<String, Object> extract(String method, Reader json,
+			Map<String, ? extends Type> pointers, long sizeIn) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, method, LinkedHashMap.class, sizeIn, () -> extract(json, pointers),
+					GsonUtils::unknownSize);
+		}
+		return extract(json, pointers);
+	}
+
+	private static LinkedHashMap<String, Object> extract(Reader json, Map<String, ? extends Type> pointers) {
+		final var extractor = new JsonPointerExtractor(mapper(), pointers);
+		final var reader = new JsonReader(json);
+		reader.setLenient(true);
+		try {
+			try {
+				reader.peek();
+			} catch (EOFException e) {
+				// an empty document has no values
+				return new LinkedHashMap<>();
+			}
+			return extractor.extract(reader);
+		} catch (EOFException | MalformedJsonException | IllegalStateException e) {
+			// a document ending early is malformed, as for Gson
+			throw new JsonSyntaxException(e);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	/**
+	 * Converts the object to CBOR (RFC 8949) with the adapters of the
+	 * {@link #cborMapper()}, drops nulls
+	 * @param o the object to be serialized
+	 * @return the CBOR
+	 */
+	public static byte[] toCbor(Object o) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, "toCbor", typeOf(o), -1, () -> toCborBytes(o), bytes -> bytes.length);
+		}
+		return toCborBytes(o);
+	}
+
+	/**
+	 * Converts the object to CBOR (RFC 8949) with the adapters of the
+	 * {@link #cborMapper()}, drops nulls
+	 * @param o the object to be serialized
+	 * @param out receives the CBOR, flushed but not closed
+	 */
+	public static void toCbor(Object o, OutputStream out) {
+		final var writer = new CborWriter(out);
+		final var listener = conversionListener;
+		if (listener != null) {
+			measure(listener, "toCbor", typeOf(o), -1, () -> toCbor(o, writer), CborWriter::size);
+		} else {
+			toCbor(o, writer);
+		}
+	}
+
+	private static byte[] toCborBytes(Object o) {
+		return toCbor(o, new CborWriter()).toByteArray();
+	}
+
+	/**
+	 * @return the writer, flushed
+	 */
+	private static CborWriter toCbor(Object o, CborWriter writer) {
+		if (o == null) {
+			cborMapper().toJson(JsonNull.INSTANCE, writer);
+		} else {
+			cborMapper().toJson(o, o.getClass(), writer);
+		}
+		flush(writer);
+		return writer;
+	}
+
+	/**
+	 * Converts CBOR (RFC 8949) to the specified bean with the adapters of the
+	 * {@link #cborMapper()}
+	 * @param cbor one data item
+	 * @param clazz the type of bean to be returned
+	 * @return the populated clazz
+	 */
+	public static <T> T toBeanFromCbor(byte[] cbor, Class<T> clazz) {
+		return toBeanFromCbor(ByteBuffer.wrap(cbor), clazz);
+	}
+
+	/**
+	 * Converts CBOR (RFC 8949) to the specified bean with the adapters of the
+	 * {@link #cborMapper()}
+	 * @param cbor one data item from its position to its limit, the position is
+	 * advanced
+	 * @param clazz the type of bean to be returned
+	 * @return the populated clazz
+	 */
+	public static <T> T toBeanFromCbor(ByteBuffer cbor, Class<T> clazz) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, "toBeanFromCbor", clazz, cbor.remaining(), () -> fromCbor(cbor, clazz),
+					GsonUtils::unknownSize);
+		}
+		return fromCbor(cbor, clazz);
+	}
+
+	/**
+	 * Converts CBOR (RFC 8949) to the specified bean with the adapters of the
+	 * {@link #cborMapper()}
+	 * @param cbor one data item, read to the end but not closed
+	 * @param clazz the type of bean to be returned
+	 * @return the populated clazz
+	 */
+	public static <T> T toBeanFromCbor(InputStream cbor, Class<T> clazz) {
+		try {
+			return toBeanFromCbor(cbor.readAllBytes(), clazz);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	private static <T> T fromCbor(ByteBuffer cbor, Class<T> clazz) {
+		final var start = cbor.position();
+		final T bean;
+		try {
+			bean = cborMapper().fromJson(new CborReader(cbor), clazz);
+		} catch (BufferUnderflowException e) {
+			throw new JsonSyntaxException("Truncated CBOR of " + (cbor.limit() - start) + " bytes", e);
+		}
+		if (cbor.hasRemaining()) {
+			throw new JsonSyntaxException("CBOR document was not fully consumed.");
+		}
+		return bean;
 	}
 
 	/**
@@ -196,7 +1155,35 @@ public class GsonUtils {
 	 * @return json
 	 */
 	public static String toPrettyJson(Object o) {
-		return prettyMapper.toJson(o);
+		return toJsonString("toPrettyJson", prettyMapper(), o);
+	}
+
+	/**
+	 * Converts the object to Json
+	 * @param o the object to be serialized
+	 * @param out receives the json, not flushed or closed
+	 */
+	public static void toPrettyJson(Object o, Appendable out) {
+		toJson("toPrettyJson", prettyMapper(), o, out);
+	}
+
+	/**
+	 * Converts the object to Json
+	 * @param o the object to be serialized
+	 * @param out receives the json encoded as UTF-8, flushed but not closed
+	 */
+	public static void toPrettyJson(Object o, OutputStream out) {
+		toJson("toPrettyJson", prettyMapper(), o, out);
+	}
+
+	/**
+	 * Converts the object to Json
+	 * @param o the object to be serialized
+	 * @param out receives the json in the charset of the stream, flushed but not closed
+	 */
+	public static void toPrettyJson(Object o, PrintStream out) {
+		toPrettyJson(o, (Appendable) out);
+		out.flush();
 	}
 
 	
@@ -206,7 +1193,35 @@ public class GsonUtils {
 	 * @return json
 	 */
 	public static String toPrettyJsonWithNulls(Object o) {
-		return nullPrettyMapper.toJson(o);
+		return toJsonString("toPrettyJsonWithNulls", nullPrettyMapper(), o);
+	}
+
+	/**
+	 * Converts the object to Json, preserving nulls
+	 * @param o the object to be serialized
+	 * @param out receives the json, not flushed or closed
+	 */
+	public static void toPrettyJsonWithNulls(Object o, Appendable out) {
+		toJson("toPrettyJsonWithNulls", nullPrettyMapper(), o, out);
+	}
+
+	/**
+	 * Converts the object to Json, preserving nulls
+	 * @param o the object to be serialized
+	 * @param out receives the json encoded as UTF-8, flushed but not closed
+	 */
+	public static void toPrettyJsonWithNulls(Object o, OutputStream out) {
+		toJson("toPrettyJsonWithNulls", nullPrettyMapper(), o, out);
+	}
+
+	/**
+	 * Converts the object to Json, preserving nulls
+	 * @param o the object to be serialized
+	 * @param out receives the json in the charset of the stream, flushed but not closed
+	 */
+	public static void toPrettyJsonWithNulls(Object o, PrintStream out) {
+		toPrettyJsonWithNulls(o, (Appendable) out);
+		out.flush();
 	}
 
 	/**
@@ -215,8 +1230,27 @@ public class GsonUtils {
 	 * @return json
 	 */
 	public static String yamlToJson(String yamlString) {
-		final var yamlObj = yaml.load(yamlString);
-		return mapper.toJson(yamlObj);
+		return yamlToJsonString("yamlToJson", mapper(), yamlString);
+	}
+
+	/**
+	 * Converts yaml to dense json
+	 * @param yaml the yaml to be converted, not closed
+	 * @param out receives the json, not flushed or closed
+	 */
+	public static void yamlToJson(Reader yaml, Appendable out) {
+		yamlToJson("yamlToJson", mapper(), yaml, out);
+	}
+
+	/**
+	 * Converts yaml to dense json
+	 * @param yaml the UTF-8 yaml to be converted, not closed
+	 * @param out receives the json encoded as UTF-8, flushed but not closed
+	 */
+	public static void yamlToJson(InputStream yaml, OutputStream out) {
+		final var writer = utf8Writer(out);
+		yamlToJson(utf8Reader(yaml), writer);
+		flush(writer);
 	}
 
 	/**
@@ -226,8 +1260,378 @@ public class GsonUtils {
 	 * @return yaml as pretty JSON
 	 */
 	public static String yamlToPrettyJson(String yamlString) {
-		final var yamlObj = yaml.load(yamlString);
-		return prettyMapper.toJson(yamlObj);
+		return yamlToJsonString("yamlToPrettyJson", prettyMapper(), yamlString);
+	}
+
+	/**
+	 * Converts yaml to pretty json
+	 * @param yaml the yaml to be converted, not closed
+	 * @param out receives the json, not flushed or closed
+	 */
+	public static void yamlToPrettyJson(Reader yaml, Appendable out) {
+		yamlToJson("yamlToPrettyJson", prettyMapper(), yaml, out);
+	}
+
+	/**
+	 * Converts yaml to pretty json
+	 * @param yaml the UTF-8 yaml to be converted, not closed
+	 * @param out receives the json encoded as UTF-8, flushed but not closed
+	 */
+	public static void yamlToPrettyJson(InputStream yaml, OutputStream out) {
+		final var writer = utf8Writer(out);
+		yamlToPrettyJson(utf8Reader(yaml), writer);
+		flush(writer);
+	}
+
+	/**
+	 * Converts json to block style yaml, token by token without building a map
+	 * @param json the json to be converted
+	 * @return yaml
+	 */
+	public static String jsonToYaml(String json) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, "jsonToYaml", null, length(json), () -> jsonToYamlString(json), GsonUtils::length);
+		}
+		return jsonToYamlString(json);
+	}
+
+	private static String jsonToYamlString(String json) {
+		final var out = JsonBuffer.acquire();
+		try {
+			yaml(new StringReader(json), out);
+			return out.toString();
+		} finally {
+			out.release();
+		}
+	}
+
+	/**
+	 * Converts json to block style yaml, token by token without building a map,
+	 * nulls are preserved
+	 * @param json the json to be converted, not closed
+	 * @param out receives the yaml, flushed but not closed
+	 */
+	public static void jsonToYaml(Reader json, Writer out) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			measure(listener, "jsonToYaml", null, -1, out, writer -> yaml(json, writer));
+		} else {
+			yaml(json, out);
+		}
+	}
+
+	private static void yaml(Reader json, Writer out) {
+		final var writer = YamlSupport.newYamlWriter(out);
+		writer.setSerializeNulls(true);
+		copyDocument(json, writer);
+	}
+
+	/**
+	 * Converts the object to block style yaml using the adapters of
+	 * {@link #mapper()}, without building a map
+	 * @param o the object to be serialized
+	 * @return yaml
+	 */
+	public static String toYaml(Object o) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, "toYaml", typeOf(o), -1, () -> toYamlString(o), GsonUtils::length);
+		}
+		return toYamlString(o);
+	}
+
+	private static String toYamlString(Object o) {
+		final var out = JsonBuffer.acquire();
+		try {
+			yaml(o, out);
+			return out.toString();
+		} finally {
+			out.release();
+		}
+	}
+
+	/**
+	 * Converts the object to block style yaml using the adapters of
+	 * {@link #mapper()}, without building a map
+	 * @param o the object to be serialized
+	 * @param out receives the yaml, flushed but not closed
+	 */
+	public static void toYaml(Object o, Writer out) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			measure(listener, "toYaml", typeOf(o), -1, out, writer -> yaml(o, writer));
+		} else {
+			yaml(o, out);
+		}
+	}
+
+	private static void yaml(Object o, Writer out) {
+		final var writer = YamlSupport.newYamlWriter(out);
+		if (o == null) {
+			mapper().toJson(JsonNull.INSTANCE, writer);
+		} else {
+			mapper().toJson(o, o.getClass(), writer);
+		}
+		flush(writer);
+	}
+
+	private static String yamlToJsonString(String method, Gson gson, String yamlString) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, method, null, length(yamlString), () -> yamlToJsonString(gson, yamlString),
+					GsonUtils::length);
+		}
+		return yamlToJsonString(gson, yamlString);
+	}
+
+	private static String yamlToJsonString(Gson gson, String yamlString) {
+		final var out = JsonBuffer.acquire();
+		try {
+			yamlToJson(gson, new StringReader(yamlString), out);
+			return out.toString();
+		} finally {
+			out.release();
+		}
+	}
+
+	private static void yamlToJson(String method, Gson gson, Reader yaml, Appendable out) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			measure(listener, method, null, -1, Streams.writerForAppendable(out),
+					writer -> yamlToJson(gson, yaml, writer));
+		} else {
+			yamlToJson(gson, yaml, Streams.writerForAppendable(out));
+		}
+	}
+
+	/**
+	 * Converts yaml by streaming parser events into a JsonWriter, safe to call
+	 * concurrently as each call uses its own parser.
+	 */
+	private static void yamlToJson(Gson gson, Reader yaml, Writer out) {
+		try {
+			YamlSupport.yamlToJson(yaml, gson, gson.newJsonWriter(out));
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	/**
+	 * Copies a single lenient JSON document token by token, an empty document is
+	 * written as null. The writer is flushed.
+	 */
+	private static void copyDocument(Reader json, JsonWriter writer) {
+		final var reader = new JsonReader(json);
+		reader.setLenient(true);
+		try {
+			boolean isEmpty = true;
+			try {
+				reader.peek();
+				isEmpty = false;
+				JsonCopier.copy(reader, writer);
+			} catch (EOFException e) {
+				if (!isEmpty) {
+					throw new JsonSyntaxException(e);
+				}
+				writer.nullValue();
+			}
+			if (!isEmpty && reader.peek() != JsonToken.END_DOCUMENT) {
+				throw new JsonSyntaxException("Did not consume the entire document.");
+			}
+			writer.flush();
+		} catch (MalformedJsonException e) {
+			throw new JsonSyntaxException(e);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	private static void toJson(String method, Gson gson, Object o, Appendable out) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			measure(listener, method, typeOf(o), -1, Streams.writerForAppendable(out), writer -> gson.toJson(o, writer));
+		} else {
+			gson.toJson(o, out);
+		}
+	}
+
+	private static void toJson(String method, Gson gson, Object o, OutputStream out) {
+		final var writer = utf8Writer(out);
+		toJson(method, gson, o, writer);
+		flush(writer);
+	}
+
+	private static String toJsonCompactString(String method, Gson gson, Object o) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, method, typeOf(o), -1, () -> toJsonCompactString(gson, o), GsonUtils::length);
+		}
+		return toJsonCompactString(gson, o);
+	}
+
+	private static String toJsonCompactString(Gson gson, Object o) {
+		final var out = JsonBuffer.acquire();
+		try {
+			toJsonCompact(gson, o, out);
+			return out.toString();
+		} finally {
+			out.release();
+		}
+	}
+
+	private static void toJsonCompact(Gson gson, Object o, Appendable out) {
+		final var writer = new CompactJsonWriter(Streams.writerForAppendable(out));
+		if (o == null) {
+			gson.toJson(JsonNull.INSTANCE, writer);
+		} else {
+			gson.toJson(o, o.getClass(), writer);
+		}
+	}
+
+	private static String toJsonString(String method, Gson gson, Object o) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, method, typeOf(o), -1, () -> toJsonString(gson, o), GsonUtils::length);
+		}
+		return toJsonString(gson, o);
+	}
+
+	/**
+	 * Serializes into a pooled buffer so only the returned String is allocated
+	 * for documents up to {@link JsonBuffer#MAX_RETAINED_CHARS}
+	 */
+	private static String toJsonString(Gson gson, Object o) {
+		final var buffer = JsonBuffer.acquire();
+		try {
+			gson.toJson(o, buffer);
+			return buffer.toString();
+		} finally {
+			buffer.release();
+		}
+	}
+
+	private static byte[] toJsonBytes(String method, Gson gson, Object o) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, method, typeOf(o), -1, () -> toJsonBytes(gson, o), bytes -> bytes.length);
+		}
+		return toJsonBytes(gson, o);
+	}
+
+	private static byte[] toJsonBytes(Gson gson, Object o) {
+		final var writer = Utf8Writer.acquire();
+		try {
+			gson.toJson(o, writer);
+			writer.flush();
+			return writer.toByteArray();
+		} finally {
+			writer.release();
+		}
+	}
+
+	private static int toJson(String method, Gson gson, Object o, ByteBuffer out) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, method, typeOf(o), -1, () -> toJson(gson, o, out), Integer::longValue);
+		}
+		return toJson(gson, o, out);
+	}
+
+	private static int toJson(Gson gson, Object o, ByteBuffer out) {
+		final var start = out.position();
+		final var writer = Utf8Writer.acquire(out);
+		try {
+			gson.toJson(o, writer);
+			writer.flush();
+			return out.position() - start;
+		} catch (BufferOverflowException e) {
+			out.position(start);
+			throw e;
+		} finally {
+			writer.release();
+		}
+	}
+
+	private static <T> T fromJson(String method, String json, Class<T> clazz) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, method, clazz, length(json), () -> mapper().fromJson(json, clazz),
+					GsonUtils::unknownSize);
+		}
+		return mapper().fromJson(json, clazz);
+	}
+
+	private static <T> T fromJson(String method, Reader json, Class<T> clazz, long sizeIn) {
+		final var listener = conversionListener;
+		if (listener != null) {
+			return measure(listener, method, clazz, sizeIn, () -> mapper().fromJson(json, clazz),
+					GsonUtils::unknownSize);
+		}
+		return mapper().fromJson(json, clazz);
+	}
+
+	/**
+	 * Times the conversion and reports it to the listener, only called while a
+	 * listener is set so the lambdas cost nothing otherwise
+	 */
+	private static <R> R measure(ConversionListener listener, String method, Class<?> type, long sizeIn,
+			Supplier<R> conversion, ToLongFunction<? super R> sizeOut) {
+		final var start = System.nanoTime();
+		final R result;
+		try {
+			result = conversion.get();
+		} catch (RuntimeException | Error e) {
+			listener.failed(method, type, System.nanoTime() - start, e);
+			throw e;
+		}
+		final var nanos = System.nanoTime() - start;
+		listener.completed(method, type, nanos, sizeIn, result == null ? -1 : sizeOut.applyAsLong(result));
+		return result;
+	}
+
+	/**
+	 * Times a conversion writing to out and reports the bytes written, the
+	 * UTF-8 length of the characters
+	 */
+	private static void measure(ConversionListener listener, String method, Class<?> type, long sizeIn, Writer out,
+			Consumer<Writer> conversion) {
+		final var counter = new CountingWriter(out);
+		measure(listener, method, type, sizeIn, () -> {
+			conversion.accept(counter);
+			return counter;
+		}, CountingWriter::getBytes);
+	}
+
+	private static Class<?> typeOf(Object o) {
+		return o == null ? null : o.getClass();
+	}
+
+	/**
+	 * @return the size of the text in bytes, as UTF-8
+	 */
+	private static long length(String text) {
+		return CountingWriter.utf8Length(text);
+	}
+
+	private static long unknownSize(Object result) {
+		return -1;
+	}
+
+	private static Writer utf8Writer(OutputStream out) {
+		return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+	}
+
+	private static Reader utf8Reader(InputStream in) {
+		return new InputStreamReader(in, StandardCharsets.UTF_8);
+	}
+
+	private static void flush(Flushable writer) {
+		try {
+			writer.flush();
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
 	}
 
 	/**
@@ -250,58 +1654,8 @@ public class GsonUtils {
 	 */
 
 	public static GsonBuilder getGsonBuilderEscapeHtml() {
-		final var builder = new GsonBuilder();
-
-		builder.registerTypeAdapter(BigDecimal.class,
-				(JsonDeserializer<BigDecimal>) (json, typeOfT, context) -> new BigDecimal(json.getAsString()));
-		builder.registerTypeAdapter(BigDecimal.class,
-				(JsonSerializer<BigDecimal>) (src, typeOfSrc, context) -> new JsonPrimitive(src.toString()));
-
-		builder.registerTypeAdapter(ZonedDateTime.class,
-				(JsonDeserializer<ZonedDateTime>) (json, typeOfT, context) -> ZonedDateTime.parse(json.getAsString()));
-		builder.registerTypeAdapter(ZonedDateTime.class,
-				(JsonSerializer<ZonedDateTime>) (src, typeOfSrc, context) -> new JsonPrimitive(src.toString()));
-
-		builder.registerTypeAdapter(OffsetDateTime.class, (JsonDeserializer<OffsetDateTime>) (json, typeOfT,
-				context) -> OffsetDateTime.parse(json.getAsString()));
-		builder.registerTypeAdapter(OffsetDateTime.class,
-				(JsonSerializer<OffsetDateTime>) (src, typeOfSrc, context) -> new JsonPrimitive(src.toString()));
-
-		builder.registerTypeAdapter(LocalDateTime.class,
-				(JsonDeserializer<LocalDateTime>) (json, typeOfT, context) -> LocalDateTime.parse(json.getAsString()));
-		builder.registerTypeAdapter(LocalDateTime.class,
-				(JsonSerializer<LocalDateTime>) (src, typeOfSrc, context) -> new JsonPrimitive(src.toString()));
-
-		builder.registerTypeAdapter(LocalDate.class,
-				(JsonDeserializer<LocalDate>) (json, typeOfT, context) -> LocalDate.parse(json.getAsString()));
-		builder.registerTypeAdapter(LocalDate.class,
-				(JsonSerializer<LocalDate>) (src, typeOfSrc, context) -> new JsonPrimitive(src.toString()));
-
-		builder.registerTypeAdapter(Instant.class,
-				(JsonDeserializer<Instant>) (json, typeOfT, context) -> Instant.parse(json.getAsString()));
-		builder.registerTypeAdapter(Instant.class,
-				(JsonSerializer<Instant>) (src, typeOfSrc, context) -> new JsonPrimitive(src.toString()));
-
-		builder.registerTypeAdapter(LocalTime.class,
-				(JsonDeserializer<LocalTime>) (json, typeOfT, context) ->  LocalTime.parse(json.getAsString()));
-		builder.registerTypeAdapter(LocalTime.class,
-				(JsonSerializer<LocalTime>) (src, typeOfSrc, context) -> new JsonPrimitive(src.toString()));
-
-		builder.registerTypeAdapter(File.class,
-				(JsonDeserializer<File>) (json, typeOfT, context) -> new File(json.getAsString()));
-		builder.registerTypeAdapter(File.class,
-				(JsonSerializer<File>) (src, typeOfSrc, context) -> new JsonPrimitive(src.toString()));
-		
-		builder.registerTypeAdapter(SimpleDateFormat.class,
-				(JsonDeserializer<SimpleDateFormat>) (json, typeOfT, context) -> new SimpleDateFormat (json.getAsString()));
-		builder.registerTypeAdapter(SimpleDateFormat.class,
-				(JsonSerializer<SimpleDateFormat>) (src, typeOfSrc, context) -> new JsonPrimitive(src.toPattern()));
-
-		builder.registerTypeAdapter(Timestamp.class,
-				(JsonDeserializer<Timestamp>) (json, typeOfT, context) -> Timestamp.valueOf (json.getAsString()));
-		builder.registerTypeAdapter(Timestamp.class,
-				(JsonSerializer<Timestamp>) (src, typeOfSrc, context) -> new JsonPrimitive(src.toString()));
-		return builder;
+		return new GsonBuilder().registerTypeAdapterFactory(DefaultTypeAdapterFactory.INSTANCE)
+				.registerTypeAdapterFactory(RecordTypeAdapterFactory.INSTANCE);
 	}
 
 
@@ -0,0 +1,366 @@
+package org.javautil.gsonutils;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses and formats the ISO-8601 text the java.time adapters exchange
+ * without going through DateTimeFormatter.
+ *
+ * Formatting produces exactly the {@code toString()} of each class. Parsing
+ * accepts the strict subset those produce, years 0000 to 9999, an upper case
+ * 'T' and an offset of Z, +HH:MM or +HH:MM:SS, and hands anything else,
+ * including invalid values, to the class's own {@code parse} so the results
+ * and exceptions are those of the JDK.
+ *
+ * Zone ids are resolved once and cached, and the last zone is matched without
+ * extracting its id so a document in one zone resolves it with no
+ * allocation. Offsets in whole quarter hours come from the cache of
+ * {@link ZoneOffset}.
+ *
+ * @author jjs
+ *
+ */
+final class IsoTime {
+	private static final int MAX_CACHED_ZONES = 1024;
+
+	/** 0000-01-01T00:00:00Z */
+	private static final long MIN_SECOND = -62_167_219_200L;
+
+	/** 9999-12-31T23:59:59Z */
+	private static final long MAX_SECOND = 253_402_300_799L;
+
+	private static final ConcurrentHashMap<String, ZoneId> zones = new ConcurrentHashMap<>();
+
+	private static volatile ZoneId lastZone;
+
+	private static final int[] SCALE = { 0, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10,
+			1 };
+
+	/**
+	 * prevent constructions
+	 */
+	private IsoTime() {
+	}
+
+	static LocalDate parseLocalDate(String text) {
+		final var date = text.length() == 10 ? date(text, 0) : null;
+		return date != null ? date : LocalDate.parse(text);
+	}
+
+	static LocalTime parseLocalTime(String text) {
+		final var time = time(text, 0, text.length());
+		return time != null ? time : LocalTime.parse(text);
+	}
+
+	static LocalDateTime parseLocalDateTime(String text) {
+		final var dateTime = dateTime(text, text.length());
+		return dateTime != null ? dateTime : LocalDateTime.parse(text);
+	}
+
+	static OffsetDateTime parseOffsetDateTime(String text) {
+		final var end = timeEnd(text);
+		final var dateTime = end > 0 ? dateTime(text, end) : null;
+		final var offset = dateTime != null ? offset(text, end, text.length()) : null;
+		return offset != null ? OffsetDateTime.of(dateTime, offset) : OffsetDateTime.parse(text);
+	}
+
+	static ZonedDateTime parseZonedDateTime(String text) {
+		final var end = timeEnd(text);
+		final var dateTime = end > 0 ? dateTime(text, end) : null;
+		if (dateTime != null) {
+			final var length = text.length();
+			final var bracket = text.indexOf('[', end);
+			final var offset = offset(text, end, bracket < 0 ? length : bracket);
+			if (offset != null && bracket < 0) {
+				return ZonedDateTime.of(dateTime, offset);
+			}
+			if (offset != null && text.charAt(length - 1) == ']') {
+				final var zone = zone(text, bracket + 1, length - 1);
+				if (zone != null) {
+					return ZonedDateTime.ofInstant(dateTime, offset, zone);
+				}
+			}
+		}
+		return ZonedDateTime.parse(text);
+	}
+
+	static Instant parseInstant(String text) {
+		final var end = text.length() - 1;
+		// seconds are required
+		final var dateTime = end >= 19 && text.charAt(end) == 'Z' ? dateTime(text, end) : null;
+		if (dateTime != null) {
+			return Instant.ofEpochSecond(dateTime.toEpochSecond(ZoneOffset.UTC), dateTime.getNano());
+		}
+		return Instant.parse(text);
+	}
+
+	static String format(LocalDate value) {
+		if (!inRange(value.getYear())) {
+			return value.toString();
+		}
+		final var buffer = new StringBuilder(10);
+		appendDate(buffer, value);
+		return buffer.toString();
+	}
+
+	static String format(LocalTime value) {
+		final var buffer = new StringBuilder(18);
+		appendTime(buffer, value.getHour(), value.getMinute(), value.getSecond(), value.getNano(), false);
+		return buffer.toString();
+	}
+
+	static String format(LocalDateTime value) {
+		if (!inRange(value.getYear())) {
+			return value.toString();
+		}
+		final var buffer = new StringBuilder(29);
+		appendDateTime(buffer, value, false);
+		return buffer.toString();
+	}
+
+	static String format(OffsetDateTime value) {
+		if (!inRange(value.getYear())) {
+			return value.toString();
+		}
+		final var buffer = new StringBuilder(35);
+		appendDateTime(buffer, value.toLocalDateTime(), false);
+		return buffer.append(value.getOffset().getId()).toString();
+	}
+
+	static String format(ZonedDateTime value) {
+		if (!inRange(value.getYear())) {
+			return value.toString();
+		}
+		final var buffer = new StringBuilder(64);
+		appendDateTime(buffer, value.toLocalDateTime(), false);
+		buffer.append(value.getOffset().getId());
+		if (value.getOffset() != value.getZone()) {
+			buffer.append('[').append(value.getZone().getId()).append(']');
+		}
+		return buffer.toString();
+	}
+
+	static String format(Instant value) {
+		if (value.getEpochSecond() < MIN_SECOND || value.getEpochSecond() > MAX_SECOND) {
+			return value.toString();
+		}
+		final var dateTime = LocalDateTime.ofEpochSecond(value.getEpochSecond(), value.getNano(), ZoneOffset.UTC);
+		final var buffer = new StringBuilder(30);
+		appendDateTime(buffer, dateTime, true);
+		return buffer.append('Z').toString();
+	}
+
+	private static boolean inRange(int year) {
+		return year >= 0 && year <= 9999;
+	}
+
+	private static void appendDateTime(StringBuilder buffer, LocalDateTime value, boolean seconds) {
+		appendDate(buffer, value.toLocalDate());
+		buffer.append('T');
+		appendTime(buffer, value.getHour(), value.getMinute(), value.getSecond(), value.getNano(), seconds);
+	}
+
+	private static void appendDate(StringBuilder buffer, LocalDate value) {
+		final var year = value.getYear();
+		append2(buffer, year / 100);
+		append2(buffer, year % 100);
+		buffer.append('-');
+		append2(buffer, value.getMonthValue());
+		buffer.append('-');
+		append2(buffer, value.getDayOfMonth());
+	}
+
+	/**
+	 * As LocalTime.toString, seconds only when not zero unless required, and the
+	 * fraction in groups of three digits
+	 */
+	private static void appendTime(StringBuilder buffer, int hour, int minute, int second, int nano,
+			boolean seconds) {
+		append2(buffer, hour);
+		buffer.append(':');
+		append2(buffer, minute);
+		if (second > 0 || nano > 0 || seconds) {
+			buffer.append(':');
+			append2(buffer, second);
+			if (nano > 0) {
+				buffer.append('.');
+				if (nano % 1_000_000 == 0) {
+					appendDigits(buffer, nano / 1_000_000, 3);
+				} else if (nano % 1_000 == 0) {
+					appendDigits(buffer, nano / 1_000, 6);
+				} else {
+					appendDigits(buffer, nano, 9);
+				}
+			}
+		}
+	}
+
+	private static void append2(StringBuilder buffer, int value) {
+		buffer.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+	}
+
+	private static void appendDigits(StringBuilder buffer, int value, int digits) {
+		for (int divisor = SCALE[10 - digits]; divisor > 0; divisor /= 10) {
+			buffer.append((char) ('0' + value / divisor % 10));
+		}
+	}
+
+	/**
+	 * @return the end of the time of a date time followed by an offset, -1 if
+	 *         there is none
+	 */
+	private static int timeEnd(String text) {
+		final var length = text.length();
+		for (int i = 16; i < length; i++) {
+			final var c = text.charAt(i);
+			if (c == 'Z' || c == '+' || c == '-') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static LocalDateTime dateTime(String text, int end) {
+		if (end < 16 || text.charAt(10) != 'T') {
+			return null;
+		}
+		final var date = date(text, 0);
+		final var time = date != null ? time(text, 11, end) : null;
+		return time != null ? LocalDateTime.of(date, time) : null;
+	}
+
+	/**
+	 * @return the date yyyy-MM-dd at start, null if not one
+	 */
+	private static LocalDate date(String text, int start) {
+		if (text.length() < start + 10 || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-') {
+			return null;
+		}
+		final var century = digits2(text, start);
+		final var year = digits2(text, start + 2);
+		final var month = digits2(text, start + 5);
+		final var day = digits2(text, start + 8);
+		if ((century | year | month | day) < 0 || month < 1 || month > 12 || day < 1) {
+			return null;
+		}
+		if (day > 28) {
+			try {
+				return LocalDate.of(century * 100 + year, month, day);
+			} catch (DateTimeException e) {
+				return null;
+			}
+		}
+		return LocalDate.of(century * 100 + year, month, day);
+	}
+
+	/**
+	 * @return the time HH:mm[:ss[.fraction]] between start and end, null if not
+	 *         one
+	 */
+	private static LocalTime time(String text, int start, int end) {
+		final var length = end - start;
+		if (length != 5 && length != 8 && (length < 10 || length > 18)) {
+			return null;
+		}
+		final var hour = digits2(text, start);
+		final var minute = digits2(text, start + 3);
+		if (text.charAt(start + 2) != ':' || hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+			return null;
+		}
+		if (length == 5) {
+			return LocalTime.of(hour, minute);
+		}
+		final var second = digits2(text, start + 6);
+		if (text.charAt(start + 5) != ':' || second < 0 || second > 59) {
+			return null;
+		}
+		var nano = 0;
+		if (length > 8) {
+			if (text.charAt(start + 8) != '.') {
+				return null;
+			}
+			for (int i = start + 9; i < end; i++) {
+				final var digit = text.charAt(i) - '0';
+				if (digit < 0 || digit > 9) {
+					return null;
+				}
+				nano = nano * 10 + digit;
+			}
+			nano *= SCALE[end - start - 9];
+		}
+		return LocalTime.of(hour, minute, second, nano);
+	}
+
+	/**
+	 * @return Z, +HH:MM or +HH:MM:SS between start and end, null if not one
+	 */
+	private static ZoneOffset offset(String text, int start, int end) {
+		final var length = end - start;
+		if (length == 1 && text.charAt(start) == 'Z') {
+			return ZoneOffset.UTC;
+		}
+		if (length != 6 && length != 9) {
+			return null;
+		}
+		final var sign = text.charAt(start);
+		final var hours = digits2(text, start + 1);
+		final var minutes = digits2(text, start + 4);
+		final var seconds = length == 9 ? digits2(text, start + 7) : 0;
+		if (sign != '+' && sign != '-' || text.charAt(start + 3) != ':' || length == 9 && text.charAt(start + 6) != ':'
+				|| (hours | minutes | seconds) < 0 || minutes > 59 || seconds > 59) {
+			return null;
+		}
+		final var total = hours * 3600 + minutes * 60 + seconds;
+		try {
+			return ZoneOffset.ofTotalSeconds(sign == '-' ? -total : total);
+		} catch (DateTimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the region zone with the id between start and end, null if the id
+	 *         is not one
+	 */
+	private static ZoneId zone(String text, int start, int end) {
+		final var last = lastZone;
+		if (last != null && last.getId().length() == end - start && text.startsWith(last.getId(), start)) {
+			return last;
+		}
+		final var id = text.substring(start, end);
+		var zone = zones.get(id);
+		if (zone == null) {
+			try {
+				zone = ZoneId.of(id);
+			} catch (DateTimeException e) {
+				return null;
+			}
+			if (zone instanceof ZoneOffset || !zone.getId().equals(id)) {
+				return null;
+			}
+			if (zones.size() < MAX_CACHED_ZONES) {
+				zones.putIfAbsent(id, zone);
+			}
+		}
+		lastZone = zone;
+		return zone;
+	}
+
+	private static int digits2(String text, int index) {
+		final var tens = text.charAt(index) - '0';
+		final var units = text.charAt(index + 1) - '0';
+		if (tens < 0 || tens > 9 || units < 0 || units > 9) {
+			return -1;
+		}
+		return tens * 10 + units;
+	}
+}
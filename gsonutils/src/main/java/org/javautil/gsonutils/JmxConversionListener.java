@@ -0,0 +1,130 @@
+package org.javautil.gsonutils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publishes a {@link ConversionStatsMXBean} per GsonUtils method and target
+ * class, registered on the first call, named
+ * <code>org.javautil.gsonutils:type=Conversions,method=toJson,class="com.example.Order"</code>.
+ *
+ * <pre>
+ * GsonUtils.setConversionListener(new JmxConversionListener());
+ * </pre>
+ *
+ * Thread safe.
+ *
+ * @author jjs
+ *
+ */
+public class JmxConversionListener implements ConversionListener {
+	public static final String DOMAIN = "org.javautil.gsonutils";
+
+	private static final class Key {
+		final String method;
+		final Class<?> type;
+
+		Key(String method, Class<?> type) {
+			this.method = method;
+			this.type = type;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && ((Key) o).method.equals(method) && ((Key) o).type == type;
+		}
+
+		@Override
+		public int hashCode() {
+			return method.hashCode() * 31 + Objects.hashCode(type);
+		}
+	}
+
+	private final MBeanServer server;
+
+	private final ConcurrentHashMap<Key, ConversionStats> stats = new ConcurrentHashMap<>();
+
+	private final Set<ObjectName> registered = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Registers with the platform MBean server
+	 */
+	public JmxConversionListener() {
+		this(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	/**
+	 * @param server where the statistics are registered
+	 */
+	public JmxConversionListener(MBeanServer server) {
+		this.server = server;
+	}
+
+	@Override
+	public void completed(String method, Class<?> type, long nanos, long sizeIn, long sizeOut) {
+		getStats(method, type).completed(nanos, sizeIn, sizeOut);
+	}
+
+	@Override
+	public void failed(String method, Class<?> type, long nanos, Throwable error) {
+		getStats(method, type).failed();
+	}
+
+	/**
+	 * @param method the GsonUtils method
+	 * @param type   the target class, null for document conversions
+	 * @return the statistics, created and registered if new
+	 */
+	public ConversionStats getStats(String method, Class<?> type) {
+		final var key = new Key(method, type);
+		final var existing = stats.get(key);
+		return existing != null ? existing : stats.computeIfAbsent(key, this::register);
+	}
+
+	private ConversionStats register(Key key) {
+		final var conversionStats = new ConversionStats();
+		final var name = objectName(key.method, key.type);
+		try {
+			server.registerMBean(conversionStats, name);
+			registered.add(name);
+		} catch (JMException e) {
+			// another listener already publishes this name, keep counting locally
+		}
+		return conversionStats;
+	}
+
+	/**
+	 * @param method the GsonUtils method
+	 * @param type   the target class, null for document conversions
+	 * @return the name the statistics are registered under
+	 */
+	public static ObjectName objectName(String method, Class<?> type) {
+		try {
+			return new ObjectName(DOMAIN + ":type=Conversions,method=" + method + ",class="
+					+ ObjectName.quote(type == null ? "-" : type.getName()));
+		} catch (JMException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Unregisters all the statistics published by this listener
+	 */
+	public void unregister() {
+		for (final var name : registered) {
+			try {
+				server.unregisterMBean(name);
+			} catch (JMException e) {
+				// already gone
+			}
+		}
+		registered.clear();
+		stats.clear();
+	}
+}
@@ -0,0 +1,93 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Reads the elements of a top level JSON array one at a time, so arrays far
+ * larger than memory can be processed. Each element is converted with the
+ * adapters of the mapper, by default {@link GsonUtils#mapper()}.
+ *
+ * Not thread safe.
+ *
+ * @author jjs
+ *
+ * @param <T> the type of each element
+ */
+public class JsonArrayReader<T> extends JsonValueReader<T> {
+	private boolean begun;
+
+	private boolean ended;
+
+	/**
+	 * @param in    the array, closed by {@link #close()}
+	 * @param clazz the type of each element
+	 */
+	public JsonArrayReader(Reader in, Class<T> clazz) {
+		this(in, clazz, GsonUtils.mapper());
+	}
+
+	/**
+	 * @param in   the array, closed by {@link #close()}
+	 * @param type the type of each element, for generic element types
+	 */
+	public JsonArrayReader(Reader in, TypeToken<T> type) {
+		this(in, type.getType(), GsonUtils.mapper());
+	}
+
+	/**
+	 * @param in   the array, closed by {@link #close()}
+	 * @param type the type of each element
+	 * @param gson the mapper
+	 */
+	public JsonArrayReader(Reader in, Type type, Gson gson) {
+		super(in, type, gson);
+	}
+
+	/**
+	 * @param path  the UTF-8 file to be read
+	 * @param clazz the type of each element
+	 * @throws IOException if the file cannot be opened
+	 */
+	public JsonArrayReader(Path path, Class<T> clazz) throws IOException {
+		this(Files.newBufferedReader(path, StandardCharsets.UTF_8), clazz);
+	}
+
+	/**
+	 * @param path the UTF-8 file to be read
+	 * @param type the type of each element, for generic element types
+	 * @throws IOException if the file cannot be opened
+	 */
+	public JsonArrayReader(Path path, TypeToken<T> type) throws IOException {
+		this(Files.newBufferedReader(path, StandardCharsets.UTF_8), type);
+	}
+
+	@Override
+	protected boolean hasNextValue() throws IOException {
+		if (ended) {
+			return false;
+		}
+		if (!begun) {
+			reader.beginArray();
+			begun = true;
+		}
+		if (reader.hasNext()) {
+			return true;
+		}
+		reader.endArray();
+		ended = true;
+		if (reader.peek() != JsonToken.END_DOCUMENT) {
+			throw new JsonSyntaxException("Did not consume the entire document.");
+		}
+		return false;
+	}
+}
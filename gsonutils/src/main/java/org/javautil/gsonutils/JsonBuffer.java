@@ -0,0 +1,105 @@
+package org.javautil.gsonutils;
+
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A reusable character buffer that serialization writes into, returned to a
+ * shared pool when done.
+ *
+ * The pool is bounded and not tied to threads so it behaves the same for
+ * platform and virtual threads. Buffers that grew beyond
+ * {@link #MAX_RETAINED_CHARS} are dropped rather than pooled so one large
+ * document does not pin its memory.
+ *
+ * Not thread safe, a buffer belongs to one caller between {@link #acquire()}
+ * and {@link #release()}.
+ *
+ * @author jjs
+ *
+ */
+final class JsonBuffer extends Writer {
+	static final int INITIAL_CHARS = 8 * 1024;
+
+	static final int MAX_RETAINED_CHARS = 1024 * 1024;
+
+	private static final ArrayBlockingQueue<JsonBuffer> pool = new ArrayBlockingQueue<>(
+			2 * Runtime.getRuntime().availableProcessors());
+
+	private char[] chars = new char[INITIAL_CHARS];
+
+	private int length;
+
+	private JsonBuffer() {
+	}
+
+	/**
+	 * @return an empty buffer from the pool or a new one
+	 */
+	static JsonBuffer acquire() {
+		final var buffer = pool.poll();
+		return buffer != null ? buffer : new JsonBuffer();
+	}
+
+	/**
+	 * Empties the buffer and returns it to the pool, the buffer must not be used
+	 * afterwards
+	 */
+	void release() {
+		length = 0;
+		if (chars.length <= MAX_RETAINED_CHARS) {
+			pool.offer(this);
+		}
+	}
+
+	private void ensureCapacity(int additional) {
+		final var required = length + additional;
+		if (required < 0) {
+			throw new OutOfMemoryError("json larger than " + Integer.MAX_VALUE + " characters");
+		}
+		if (required > chars.length) {
+			chars = Arrays.copyOf(chars, Math.max(required, chars.length * 2));
+		}
+	}
+
+	@Override
+	public void write(int c) {
+		ensureCapacity(1);
+		chars[length++] = (char) c;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) {
+		ensureCapacity(len);
+		System.arraycopy(cbuf, off, chars, length, len);
+		length += len;
+	}
+
+	@Override
+	public void write(String str, int off, int len) {
+		ensureCapacity(len);
+		str.getChars(off, off + len, chars, length);
+		length += len;
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	public void close() {
+	}
+
+	/**
+	 * @return the number of characters written
+	 */
+	int length() {
+		return length;
+	}
+
+	@Override
+	public String toString() {
+		return new String(chars, 0, length);
+	}
+}
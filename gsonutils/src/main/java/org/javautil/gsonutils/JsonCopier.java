@@ -0,0 +1,80 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+
+import com.google.gson.internal.LazilyParsedNumber;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Copies JSON token by token from a JsonReader to a JsonWriter so documents of
+ * any size can be reformatted in constant memory.
+ *
+ * @author jjs
+ *
+ */
+final class JsonCopier {
+
+	/**
+	 * prevent constructions
+	 */
+	private JsonCopier() {
+	}
+
+	/**
+	 * Copies the next value, including any nested arrays and objects.
+	 *
+	 * Numbers are copied as the literal text that was read so no precision is
+	 * lost.
+	 *
+	 * @param in  positioned at the value to be copied
+	 * @param out receives the value
+	 * @throws IOException
+	 */
+	static void copy(JsonReader in, JsonWriter out) throws IOException {
+		int depth = 0;
+		do {
+			switch (in.peek()) {
+			case BEGIN_ARRAY:
+				in.beginArray();
+				out.beginArray();
+				depth++;
+				break;
+			case END_ARRAY:
+				in.endArray();
+				out.endArray();
+				depth--;
+				break;
+			case BEGIN_OBJECT:
+				in.beginObject();
+				out.beginObject();
+				depth++;
+				break;
+			case END_OBJECT:
+				in.endObject();
+				out.endObject();
+				depth--;
+				break;
+			case NAME:
+				out.name(in.nextName());
+				break;
+			case STRING:
+				out.value(in.nextString());
+				break;
+			case NUMBER:
+				out.value(new LazilyParsedNumber(in.nextString()));
+				break;
+			case BOOLEAN:
+				out.value(in.nextBoolean());
+				break;
+			case NULL:
+				in.nextNull();
+				out.nullValue();
+				break;
+			case END_DOCUMENT:
+			default:
+				throw new IllegalStateException("Expected a value but was " + in.peek() + " at path " + in.getPath());
+			}
+		} while (depth > 0);
+	}
+}
@@ -0,0 +1,60 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Reads JSON Lines (NDJSON) record by record, each record is converted as
+ * {@link GsonUtils#toBeanFromJson(String, Class)} would, without loading the
+ * input.
+ *
+ * Not thread safe.
+ *
+ * @author jjs
+ *
+ * @param <T> the type of each record
+ */
+public class JsonLinesReader<T> extends JsonValueReader<T> {
+
+	/**
+	 * Reads with {@link GsonUtils#mapper()}
+	 *
+	 * @param in    the lines, closed by {@link #close()}
+	 * @param clazz the type of each record
+	 */
+	public JsonLinesReader(Reader in, Class<T> clazz) {
+		this(in, clazz, GsonUtils.mapper());
+	}
+
+	/**
+	 * @param in   the lines, closed by {@link #close()}
+	 * @param type the type of each record
+	 * @param gson the mapper
+	 */
+	public JsonLinesReader(Reader in, Type type, Gson gson) {
+		super(in, type, gson);
+	}
+
+	/**
+	 * Reads a UTF-8 file with {@link GsonUtils#mapper()}
+	 *
+	 * @param path  the file to be read
+	 * @param clazz the type of each record
+	 * @throws IOException if the file cannot be opened
+	 */
+	public JsonLinesReader(Path path, Class<T> clazz) throws IOException {
+		this(Files.newBufferedReader(path, StandardCharsets.UTF_8), clazz);
+	}
+
+	@Override
+	protected boolean hasNextValue() throws IOException {
+		return reader.peek() != JsonToken.END_DOCUMENT;
+	}
+}
@@ -0,0 +1,127 @@
+package org.javautil.gsonutils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes objects as JSON Lines (NDJSON), one dense JSON document per line.
+ *
+ * A single buffer and JsonWriter are reused for every record, the output is
+ * written as each record is added. Pretty printing of the mapper is ignored so
+ * each record stays on one line.
+ *
+ * Not thread safe.
+ *
+ * @author jjs
+ *
+ */
+public class JsonLinesWriter implements Closeable, Flushable {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Gson gson;
+
+	private final Writer out;
+
+	private final JsonWriter writer;
+
+	/**
+	 * Writes with {@link GsonUtils#mapper()}
+	 *
+	 * @param out receives the lines, closed by {@link #close()}
+	 */
+	public JsonLinesWriter(Writer out) {
+		this(out, GsonUtils.mapper());
+	}
+
+	/**
+	 * @param out  receives the lines, closed by {@link #close()}
+	 * @param gson the mapper, for instance {@link GsonUtils#nullMapper()} to keep
+	 *             nulls
+	 */
+	public JsonLinesWriter(Writer out, Gson gson) {
+		this.gson = gson;
+		this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, BUFFER_SIZE);
+		this.writer = new JsonWriter(this.out);
+		this.writer.setLenient(true);
+	}
+
+	/**
+	 * Writes UTF-8 to the file with {@link GsonUtils#mapper()}
+	 *
+	 * @param path    the file to be written
+	 * @param options how the file is opened, for instance
+	 *                {@link java.nio.file.StandardOpenOption#APPEND}, by default
+	 *                the file is created or truncated
+	 * @throws IOException if the file cannot be opened
+	 */
+	public JsonLinesWriter(Path path, OpenOption... options) throws IOException {
+		this(Files.newBufferedWriter(path, StandardCharsets.UTF_8, options), GsonUtils.mapper());
+	}
+
+	/**
+	 * Appends the object as one line
+	 *
+	 * @param o the object to be serialized, null is written as null
+	 * @return this
+	 */
+	public JsonLinesWriter write(Object o) {
+		if (o == null) {
+			gson.toJson(JsonNull.INSTANCE, writer);
+		} else {
+			gson.toJson(o, o.getClass(), writer);
+		}
+		try {
+			out.write('\n');
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+		return this;
+	}
+
+	/**
+	 * Appends each object as one line
+	 *
+	 * @param objects the objects to be serialized
+	 * @return this
+	 */
+	public JsonLinesWriter writeAll(Iterable<?> objects) {
+		for (final Object o : objects) {
+			write(o);
+		}
+		return this;
+	}
+
+	/**
+	 * Appends each object as one line
+	 *
+	 * @param objects the objects to be serialized, consumed but not closed
+	 * @return this
+	 */
+	public JsonLinesWriter writeAll(Stream<?> objects) {
+		objects.forEachOrdered(this::write);
+		return this;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
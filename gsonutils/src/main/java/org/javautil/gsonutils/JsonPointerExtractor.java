@@ -0,0 +1,286 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.internal.Streams;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Reads the values at RFC 6901 JSON Pointers from a stream without converting
+ * the rest of the document.
+ *
+ * The pointers form a tree that is walked alongside the JSON, members and
+ * elements no pointer passes through are skipped with
+ * {@link JsonReader#skipValue()}, and reading stops once every pointer has
+ * been found. Each value is converted by the adapter the mapper has for its
+ * type, straight from the stream unless another pointer reaches into it, then
+ * from a JsonElement of that value only.
+ *
+ * A pointer that is not found has no entry in the result. When an object has
+ * duplicate names the first match wins.
+ *
+ * @author jjs
+ *
+ */
+final class JsonPointerExtractor {
+	/**
+	 * A reference token of one or more pointers, the root being the empty pointer
+	 */
+	private static final class Node {
+		final Map<String, Node> members = new HashMap<>();
+
+		/** children by array index, null if no token is an index */
+		Map<Integer, Node> elements;
+
+		/** the pointers that end here */
+		final List<String> pointers = new ArrayList<>();
+
+		final List<Type> types = new ArrayList<>();
+
+		/** pointers ending here or below that have not been found */
+		int pending;
+
+		Node child(String token) {
+			var child = members.get(token);
+			if (child == null) {
+				child = new Node();
+				members.put(token, child);
+				final var index = arrayIndex(token);
+				if (index >= 0) {
+					if (elements == null) {
+						elements = new HashMap<>();
+					}
+					elements.put(index, child);
+				}
+			}
+			return child;
+		}
+
+		boolean hasChildren() {
+			return !members.isEmpty();
+		}
+	}
+
+	private final Gson gson;
+
+	private final Map<String, ? extends Type> pointers;
+
+	/**
+	 * @param gson     converts the values
+	 * @param pointers the type of the value at each pointer
+	 * @throws IllegalArgumentException if a pointer is not empty and does not
+	 *                                  start with /
+	 */
+	JsonPointerExtractor(Gson gson, Map<String, ? extends Type> pointers) {
+		this.gson = gson;
+		this.pointers = pointers;
+		for (final var pointer : pointers.keySet()) {
+			tokens(pointer);
+		}
+	}
+
+	/**
+	 * @param in positioned before the document, read only as far as needed
+	 * @return the value of each pointer found, in the order of the pointers
+	 */
+	LinkedHashMap<String, Object> extract(JsonReader in) throws IOException {
+		final var root = new Node();
+		for (final var pointer : pointers.entrySet()) {
+			var node = root;
+			for (final var token : tokens(pointer.getKey())) {
+				node = node.child(token);
+			}
+			node.pointers.add(pointer.getKey());
+			node.types.add(pointer.getValue());
+		}
+		count(root);
+		final var found = new HashMap<String, Object>();
+		if (root.pending > 0) {
+			visit(in, root, found, true);
+		}
+		final var result = new LinkedHashMap<String, Object>();
+		for (final var pointer : pointers.keySet()) {
+			if (found.containsKey(pointer)) {
+				result.put(pointer, found.get(pointer));
+			}
+		}
+		return result;
+	}
+
+	private static int count(Node node) {
+		node.pending = node.pointers.size();
+		for (final var child : node.members.values()) {
+			node.pending += count(child);
+		}
+		return node.pending;
+	}
+
+	/**
+	 * Reads the value at the node, or skips what no pointer needs. Once every
+	 * pointer below the node is found the rest of the document is left unread
+	 * at the root, a nested object or array is skipped to its end for the parent.
+	 *
+	 * @param root whether the node is the document
+	 * @return the number of pointers found
+	 */
+	private int visit(JsonReader in, Node node, Map<String, Object> found, boolean root) throws IOException {
+		if (!node.pointers.isEmpty()) {
+			if (!node.hasChildren() && node.pointers.size() == 1) {
+				found.put(node.pointers.get(0), gson.getAdapter(TypeToken.get(node.types.get(0))).read(in));
+				return take(node, 1);
+			}
+			return resolve(Streams.parse(in), node, found);
+		}
+		var resolved = 0;
+		switch (in.peek()) {
+		case BEGIN_OBJECT:
+			in.beginObject();
+			while (in.hasNext() && node.pending > 0) {
+				final var child = node.members.get(in.nextName());
+				if (child == null || child.pending == 0) {
+					in.skipValue();
+				} else {
+					resolved += take(node, visit(in, child, found, false));
+				}
+			}
+			if (!root) {
+				while (in.hasNext()) {
+					in.nextName();
+					in.skipValue();
+				}
+				in.endObject();
+			}
+			break;
+		case BEGIN_ARRAY:
+			in.beginArray();
+			for (int index = 0; in.hasNext() && node.pending > 0; index++) {
+				final var child = node.elements != null ? node.elements.get(index) : null;
+				if (child == null || child.pending == 0) {
+					in.skipValue();
+				} else {
+					resolved += take(node, visit(in, child, found, false));
+				}
+			}
+			if (!root) {
+				while (in.hasNext()) {
+					in.skipValue();
+				}
+				in.endArray();
+			}
+			break;
+		default:
+			in.skipValue();
+		}
+		return resolved;
+	}
+
+	/**
+	 * Resolves the node and its children from a value already read
+	 *
+	 * @return the number of pointers found
+	 */
+	private int resolve(JsonElement value, Node node, Map<String, Object> found) {
+		var resolved = 0;
+		for (int i = 0; i < node.pointers.size(); i++) {
+			if (!found.containsKey(node.pointers.get(i))) {
+				found.put(node.pointers.get(i), gson.fromJson(value, node.types.get(i)));
+				resolved += take(node, 1);
+			}
+		}
+		for (final var member : node.members.entrySet()) {
+			final var child = member.getValue();
+			if (child.pending == 0) {
+				continue;
+			}
+			JsonElement childValue = null;
+			if (value.isJsonObject()) {
+				childValue = value.getAsJsonObject().get(member.getKey());
+			} else if (value.isJsonArray()) {
+				final var index = arrayIndex(member.getKey());
+				if (index >= 0 && index < value.getAsJsonArray().size()) {
+					childValue = value.getAsJsonArray().get(index);
+				}
+			}
+			if (childValue != null) {
+				resolved += take(node, resolve(childValue, child, found));
+			}
+		}
+		return resolved;
+	}
+
+	private static int take(Node node, int resolved) {
+		node.pending -= resolved;
+		return resolved;
+	}
+
+	/**
+	 * @return the unescaped reference tokens
+	 */
+	static List<String> tokens(String pointer) {
+		if (pointer.isEmpty()) {
+			return List.of();
+		}
+		if (pointer.charAt(0) != '/') {
+			throw new IllegalArgumentException("JSON Pointer must be empty or start with /: " + pointer);
+		}
+		final var tokens = new ArrayList<String>();
+		var start = 1;
+		while (true) {
+			var end = pointer.indexOf('/', start);
+			if (end < 0) {
+				end = pointer.length();
+			}
+			tokens.add(unescape(pointer.substring(start, end), pointer));
+			if (end == pointer.length()) {
+				return tokens;
+			}
+			start = end + 1;
+		}
+	}
+
+	private static String unescape(String token, String pointer) {
+		if (token.indexOf('~') < 0) {
+			return token;
+		}
+		final var unescaped = new StringBuilder(token.length());
+		for (int i = 0; i < token.length(); i++) {
+			final var c = token.charAt(i);
+			if (c != '~') {
+				unescaped.append(c);
+			} else if (i + 1 < token.length() && (token.charAt(i + 1) == '0' || token.charAt(i + 1) == '1')) {
+				unescaped.append(token.charAt(++i) == '0' ? '~' : '/');
+			} else {
+				throw new IllegalArgumentException("Invalid escape in JSON Pointer: " + pointer);
+			}
+		}
+		return unescaped.toString();
+	}
+
+	/**
+	 * @return the index an array token refers to, -1 if it is not an index
+	 */
+	private static int arrayIndex(String token) {
+		final var length = token.length();
+		if (length == 0 || length > 9 || length > 1 && token.charAt(0) == '0') {
+			return -1;
+		}
+		var index = 0;
+		for (int i = 0; i < length; i++) {
+			final var digit = token.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			index = index * 10 + digit;
+		}
+		return index;
+	}
+}
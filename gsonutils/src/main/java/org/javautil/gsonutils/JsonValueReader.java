@@ -0,0 +1,96 @@
+package org.javautil.gsonutils;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Base for readers that lazily convert a sequence of JSON values one at a time
+ * with a mapper.
+ *
+ * @author jjs
+ *
+ * @param <T> the type of each value
+ */
+abstract class JsonValueReader<T> implements Iterator<T>, Closeable {
+	private final Reader in;
+
+	private final Type type;
+
+	private final Gson gson;
+
+	protected final JsonReader reader;
+
+	/**
+	 * @param in   the JSON, closed by {@link #close()}
+	 * @param type the type of each value
+	 * @param gson the mapper
+	 */
+	JsonValueReader(Reader in, Type type, Gson gson) {
+		this.in = in;
+		this.type = type;
+		this.gson = gson;
+		this.reader = new JsonReader(in);
+		this.reader.setLenient(true);
+	}
+
+	/**
+	 * @return true if the reader is positioned at another value
+	 * @throws IOException
+	 */
+	protected abstract boolean hasNextValue() throws IOException;
+
+	@Override
+	public boolean hasNext() {
+		try {
+			return hasNextValue();
+		} catch (EOFException | MalformedJsonException | IllegalStateException e) {
+			// IllegalStateException is an unexpected token, such as an object for an array
+			throw new JsonSyntaxException(e);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return gson.fromJson(reader, type);
+	}
+
+	/**
+	 * @return the remaining values, closing the stream closes this reader
+	 */
+	public Stream<T> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+				.onClose(() -> {
+					try {
+						close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
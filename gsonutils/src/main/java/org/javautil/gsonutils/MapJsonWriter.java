@@ -0,0 +1,216 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.internal.LinkedTreeMap;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A JsonWriter that builds the java objects Gson would produce when reading
+ * the written JSON back as {@code Object}, without producing JSON text.
+ *
+ * A top level object becomes a {@link LinkedHashMap}, nested objects
+ * {@link LinkedTreeMap}, arrays {@link ArrayList}, numbers {@link Double}, and
+ * strings, booleans and nulls are kept as is, matching what
+ * {@code fromJson(json, LinkedHashMap.class)} returns so a bean can be
+ * converted to a map in one pass. As there, a name repeated in the top level
+ * object is a {@link JsonSyntaxException}. With a {@link StringInterner} the
+ * names and short string values are shared between the maps.
+ *
+ * @author jjs
+ *
+ */
+final class MapJsonWriter extends JsonWriter {
+	private static final Writer UNWRITABLE_WRITER = new Writer() {
+		@Override
+		public void write(char[] buffer, int offset, int counter) {
+			throw new AssertionError();
+		}
+
+		@Override
+		public void flush() {
+			throw new AssertionError();
+		}
+
+		@Override
+		public void close() {
+			throw new AssertionError();
+		}
+	};
+
+	/** Sentinel for the top level value before anything is written */
+	private static final Object EMPTY = new Object();
+
+	/** the maps and lists under construction, outermost to innermost */
+	private final List<Object> stack = new ArrayList<>();
+
+	private String pendingName;
+
+	private Object product = EMPTY;
+
+	private final StringInterner interner;
+
+	MapJsonWriter() {
+		this(null);
+	}
+
+	/**
+	 * @param interner canonicalizes names and values, null for none
+	 */
+	MapJsonWriter(StringInterner interner) {
+		super(UNWRITABLE_WRITER);
+		this.interner = interner;
+	}
+
+	/**
+	 * @return the top level value written, null if null or nothing was written
+	 */
+	Object get() {
+		if (!stack.isEmpty()) {
+			throw new IllegalStateException("Expected one JSON value but was " + stack);
+		}
+		return product == EMPTY ? null : product;
+	}
+
+	private Object peekStack() {
+		return stack.get(stack.size() - 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void put(Object value) {
+		if (pendingName != null) {
+			if (value != null || getSerializeNulls()) {
+				final var replaced = ((Map<String, Object>) peekStack()).put(pendingName, value);
+				// Gson's map adapter rejects this for the top level map, its object adapter not below
+				if (replaced != null && stack.size() == 1) {
+					throw new JsonSyntaxException("duplicate key: " + pendingName);
+				}
+			}
+			pendingName = null;
+		} else if (stack.isEmpty()) {
+			if (product != EMPTY) {
+				throw new IllegalStateException("JSON must have only one top-level value.");
+			}
+			product = value;
+		} else if (peekStack() instanceof List) {
+			((List<Object>) peekStack()).add(value);
+		} else {
+			throw new IllegalStateException();
+		}
+	}
+
+	@Override
+	public JsonWriter beginArray() throws IOException {
+		final var list = new ArrayList<Object>();
+		put(list);
+		stack.add(list);
+		return this;
+	}
+
+	@Override
+	public JsonWriter endArray() throws IOException {
+		if (stack.isEmpty() || pendingName != null || !(peekStack() instanceof List)) {
+			throw new IllegalStateException();
+		}
+		stack.remove(stack.size() - 1);
+		return this;
+	}
+
+	@Override
+	public JsonWriter beginObject() throws IOException {
+		final Map<String, Object> map = stack.isEmpty() ? new LinkedHashMap<>() : new LinkedTreeMap<>();
+		put(map);
+		stack.add(map);
+		return this;
+	}
+
+	@Override
+	public JsonWriter endObject() throws IOException {
+		if (stack.isEmpty() || pendingName != null || !(peekStack() instanceof Map)) {
+			throw new IllegalStateException();
+		}
+		stack.remove(stack.size() - 1);
+		return this;
+	}
+
+	@Override
+	public JsonWriter name(String name) throws IOException {
+		if (name == null) {
+			throw new NullPointerException("name == null");
+		}
+		if (stack.isEmpty() || pendingName != null || !(peekStack() instanceof Map)) {
+			throw new IllegalStateException();
+		}
+		pendingName = interner == null ? name : interner.intern(name);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(String value) throws IOException {
+		put(interner == null ? value : interner.internValue(value));
+		return this;
+	}
+
+	@Override
+	public JsonWriter jsonValue(String value) throws IOException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public JsonWriter nullValue() throws IOException {
+		put(null);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(boolean value) throws IOException {
+		put(value);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(Boolean value) throws IOException {
+		put(value);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(double value) throws IOException {
+		if (!isLenient() && (Double.isNaN(value) || Double.isInfinite(value))) {
+			throw new IllegalArgumentException("JSON forbids NaN and infinities: " + value);
+		}
+		put(value);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(long value) throws IOException {
+		put((double) value);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(Number value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		return value(value instanceof Double ? value.doubleValue() : Double.parseDouble(value.toString()));
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!stack.isEmpty()) {
+			throw new IOException("Incomplete document");
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a UTF-8 file through memory mapped windows, decoding with
+ * {@link Utf8Reader}, so the text is never copied onto the heap.
+ *
+ * A mapping is limited to 2GB so larger files are read through consecutive
+ * windows. A window never ends inside a multi byte sequence, the next window
+ * starts at its lead byte.
+ *
+ * Not thread safe.
+ *
+ * @author jjs
+ *
+ */
+final class MappedFileReader extends Reader {
+	static final long WINDOW_SIZE = 1L << 30;
+
+	private final FileChannel channel;
+
+	private final long size;
+
+	private final long windowSize;
+
+	private long position;
+
+	private Utf8Reader window;
+
+	/**
+	 * @param path the UTF-8 file to be read
+	 * @throws IOException if the file cannot be opened
+	 */
+	MappedFileReader(Path path) throws IOException {
+		this(path, WINDOW_SIZE);
+	}
+
+	/**
+	 * @param path       the UTF-8 file to be read
+	 * @param windowSize the largest number of bytes mapped at once, at least 4
+	 * @throws IOException if the file cannot be opened
+	 */
+	MappedFileReader(Path path, long windowSize) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.size = channel.size();
+		this.windowSize = windowSize;
+	}
+
+	/**
+	 * @return the size of the file in bytes
+	 */
+	long size() {
+		return size;
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		while (true) {
+			if (window != null) {
+				final var n = window.read(cbuf, off, len);
+				if (n != -1) {
+					return n;
+				}
+				window = null;
+			}
+			if (position >= size) {
+				return -1;
+			}
+			map();
+		}
+	}
+
+	private void map() throws IOException {
+		final var length = (int) Math.min(windowSize, size - position);
+		final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+		if (position + length < size) {
+			buffer.limit(completeLength(buffer, length));
+		}
+		position += buffer.limit();
+		window = new Utf8Reader(buffer);
+	}
+
+	/**
+	 * @return the length without a trailing incomplete multi byte sequence
+	 */
+	private static int completeLength(MappedByteBuffer buffer, int length) {
+		for (int i = length - 1; i >= Math.max(0, length - 3); i--) {
+			final int b = buffer.get(i);
+			if ((b & 0xc0) == 0x80) {
+				continue;
+			}
+			if ((b & 0xe0) == 0xc0 && i + 2 > length || (b & 0xf0) == 0xe0 && i + 3 > length
+					|| (b & 0xf8) == 0xf0 && i + 4 > length) {
+				return i;
+			}
+			break;
+		}
+		return length;
+	}
+
+	@Override
+	public void close() throws IOException {
+		window = null;
+		channel.close();
+	}
+}
@@ -0,0 +1,45 @@
+package org.javautil.gsonutils;
+
+/**
+ * The settings that distinguish the mappers of a {@link MapperRegistry}.
+ *
+ * @author jjs
+ *
+ */
+public enum MapperOption {
+	/** indented output, one member or element per line */
+	PRETTY,
+	/** null members are written rather than dropped */
+	NULLS,
+	/** &lt; &gt; &amp; = and ' are escaped for use in HTML */
+	ESCAPE_HTML,
+	/** NaN and infinities are written rather than rejected */
+	SPECIAL_FLOATS,
+	/**
+	 * objects in arrays start on a new line, otherwise dense. Applied by the
+	 * writer, see {@link GsonUtils#toJson(Object, MapperOption...)}, the mapper
+	 * is the same as without it. Ignored when {@link #PRETTY} is set.
+	 */
+	COMPACT,
+	/**
+	 * BigDecimal is written as a JSON number rather than a string, either form
+	 * is read
+	 */
+	NUMERIC_DECIMALS,
+	/**
+	 * BigDecimal with a scale of zero or more is written in plain notation,
+	 * 0.00000010 rather than 1.0E-7
+	 */
+	PLAIN_DECIMALS,
+	/**
+	 * Instant, LocalDateTime and Timestamp are written as a JSON number of epoch
+	 * seconds with nanoseconds as the fraction, either form is read
+	 */
+	EPOCH_TIMES,
+	/**
+	 * maps are read by name so the mapper can read CBOR, see
+	 * {@link GsonUtils#toBeanFromCbor(byte[], Class)}. JSON is read and written as
+	 * without it.
+	 */
+	CBOR
+}
@@ -0,0 +1,170 @@
+package org.javautil.gsonutils;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapterFactory;
+
+/**
+ * Creates a mapper for each combination of {@link MapperOption}s on first use
+ * and caches it.
+ *
+ * Every mapper shares the adapters of {@link GsonUtils#getGsonBuilderEscapeHtml()}
+ * plus the adapters registered here, which apply to all combinations.
+ * Registering discards the cached mappers so later calls see the new adapter,
+ * register at startup as mappers already handed out are not changed.
+ *
+ * Thread safe.
+ *
+ * @author jjs
+ *
+ */
+public class MapperRegistry {
+	private static final MapperOption[] OPTIONS = MapperOption.values();
+
+	/** a slot per combination of options indexed by their bits, doubling with each option */
+	private final AtomicReferenceArray<Gson> mappers = new AtomicReferenceArray<>(1 << OPTIONS.length);
+
+	private final List<Consumer<GsonBuilder>> registrations = new ArrayList<>();
+
+	/**
+	 * @param options the settings, none for dense output that drops nulls and
+	 *                does not escape html
+	 * @return the cached mapper
+	 */
+	public Gson get(MapperOption... options) {
+		var key = 0;
+		for (final var option : options) {
+			key |= 1 << option.ordinal();
+		}
+		return get(key);
+	}
+
+	/**
+	 * @param options the settings
+	 * @return the cached mapper
+	 */
+	public Gson get(Set<MapperOption> options) {
+		var key = 0;
+		for (final var option : options) {
+			key |= 1 << option.ordinal();
+		}
+		return get(key);
+	}
+
+	private Gson get(int key) {
+		// the writer applies compact, the mapper is the dense one
+		final var index = key & ~(1 << MapperOption.COMPACT.ordinal());
+		final var gson = mappers.get(index);
+		return gson != null ? gson : create(index);
+	}
+
+	private synchronized Gson create(int key) {
+		var gson = mappers.get(key);
+		if (gson == null) {
+			final var builder = newBuilder(key);
+			if ((key & 1 << MapperOption.PRETTY.ordinal()) != 0) {
+				builder.setPrettyPrinting();
+			}
+			if ((key & 1 << MapperOption.NULLS.ordinal()) != 0) {
+				builder.serializeNulls();
+			}
+			if ((key & 1 << MapperOption.ESCAPE_HTML.ordinal()) == 0) {
+				builder.disableHtmlEscaping();
+			}
+			if ((key & 1 << MapperOption.SPECIAL_FLOATS.ordinal()) != 0) {
+				builder.serializeSpecialFloatingPointValues();
+			}
+			gson = builder.create();
+			mappers.set(key, gson);
+		}
+		return gson;
+	}
+
+	/**
+	 * @return a builder with the shared and registered adapters, escaping html
+	 */
+	public GsonBuilder newBuilder() {
+		return newBuilder(0);
+	}
+
+	/**
+	 * Applies the options that replace shared adapters before the registrations,
+	 * so a registered adapter still takes precedence
+	 */
+	private synchronized GsonBuilder newBuilder(int key) {
+		final var builder = GsonUtils.getGsonBuilderEscapeHtml();
+		final var numeric = (key & 1 << MapperOption.NUMERIC_DECIMALS.ordinal()) != 0;
+		final var plain = (key & 1 << MapperOption.PLAIN_DECIMALS.ordinal()) != 0;
+		if (numeric || plain) {
+			builder.registerTypeAdapter(BigDecimal.class, BigDecimalCodec.get(numeric, plain));
+		}
+		if ((key & 1 << MapperOption.EPOCH_TIMES.ordinal()) != 0) {
+			builder.registerTypeAdapter(Instant.class, EpochCodec.INSTANT);
+			builder.registerTypeAdapter(LocalDateTime.class, EpochCodec.LOCAL_DATE_TIME);
+			builder.registerTypeAdapter(Timestamp.class, EpochCodec.TIMESTAMP);
+		}
+		for (final var registration : registrations) {
+			registration.accept(builder);
+		}
+		if ((key & 1 << MapperOption.CBOR.ordinal()) != 0) {
+			// after the registrations, it only stands in for Gson's own map adapter
+			builder.registerTypeAdapterFactory(CborMapTypeAdapterFactory.INSTANCE);
+		}
+		return builder;
+	}
+
+	/**
+	 * Registers an adapter for all mappers, as
+	 * {@link GsonBuilder#registerTypeAdapter(Type, Object)}
+	 *
+	 * @param type    the type
+	 * @param adapter a TypeAdapter, JsonSerializer, JsonDeserializer or
+	 *                InstanceCreator
+	 * @return this
+	 */
+	public MapperRegistry registerTypeAdapter(Type type, Object adapter) {
+		return register(builder -> builder.registerTypeAdapter(type, adapter));
+	}
+
+	/**
+	 * Registers an adapter for all mappers, as
+	 * {@link GsonBuilder#registerTypeHierarchyAdapter(Class, Object)}
+	 *
+	 * @param baseType the class and its subclasses
+	 * @param adapter  a TypeAdapter, JsonSerializer or JsonDeserializer
+	 * @return this
+	 */
+	public MapperRegistry registerTypeHierarchyAdapter(Class<?> baseType, Object adapter) {
+		return register(builder -> builder.registerTypeHierarchyAdapter(baseType, adapter));
+	}
+
+	/**
+	 * Registers a factory for all mappers, as
+	 * {@link GsonBuilder#registerTypeAdapterFactory(TypeAdapterFactory)}
+	 *
+	 * @param factory the factory
+	 * @return this
+	 */
+	public MapperRegistry registerTypeAdapterFactory(TypeAdapterFactory factory) {
+		return register(builder -> builder.registerTypeAdapterFactory(factory));
+	}
+
+	private synchronized MapperRegistry register(Consumer<GsonBuilder> registration) {
+		registrations.add(registration);
+		for (int i = 0; i < mappers.length(); i++) {
+			mappers.set(i, null);
+		}
+		return this;
+	}
+}
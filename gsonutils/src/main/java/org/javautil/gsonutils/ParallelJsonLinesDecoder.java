@@ -0,0 +1,343 @@
+package org.javautil.gsonutils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Decodes a JSON Lines (NDJSON) file on several threads.
+ *
+ * The file is memory mapped and split into chunks of about
+ * {@link #setChunkSize(int)} bytes that end on a newline. Each chunk is decoded
+ * with the shared mapper on the executor while the calling thread keeps
+ * splitting, at most {@link #setMaxChunksInFlight(int)} chunks are decoded or
+ * waiting to be consumed at any time, which bounds memory use.
+ *
+ * The consumer is always called on the thread calling
+ * {@link #decode(Path, Consumer)}, so it does not need to be thread safe. In
+ * ordered mode the records arrive in file order, in unordered mode chunks are
+ * consumed as soon as they are decoded for maximum throughput, records within a
+ * chunk stay in order.
+ *
+ * @author jjs
+ *
+ * @param <T> the type of each record
+ */
+public class ParallelJsonLinesDecoder<T> {
+	/** mapped at once, chunks are sliced from the window */
+	private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+
+	private final Type type;
+
+	private final Gson gson;
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	private int chunkSize = 1024 * 1024;
+
+	private int maxChunksInFlight;
+
+	private boolean ordered = true;
+
+	private ExecutorService executor;
+
+	/**
+	 * Decodes with {@link GsonUtils#mapper()}
+	 *
+	 * @param clazz the type of each record
+	 */
+	public ParallelJsonLinesDecoder(Class<T> clazz) {
+		this(clazz, GsonUtils.mapper());
+	}
+
+	/**
+	 * @param type the type of each record
+	 * @param gson the mapper, shared by all threads
+	 */
+	public ParallelJsonLinesDecoder(Type type, Gson gson) {
+		this.type = type;
+		this.gson = gson;
+	}
+
+	/**
+	 * @param parallelism the number of threads of the pool created for each
+	 *                    decode, ignored if an executor is set, defaults to the
+	 *                    number of processors
+	 * @return this
+	 */
+	public ParallelJsonLinesDecoder<T> setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be positive " + parallelism);
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * @param chunkSize the approximate number of bytes decoded by one task, a
+	 *                  chunk is extended to the end of its last line, defaults to
+	 *                  1 MB
+	 * @return this
+	 */
+	public ParallelJsonLinesDecoder<T> setChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be positive " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * @param maxChunksInFlight the number of chunks being decoded or waiting to
+	 *                          be consumed, defaults to twice the parallelism
+	 * @return this
+	 */
+	public ParallelJsonLinesDecoder<T> setMaxChunksInFlight(int maxChunksInFlight) {
+		if (maxChunksInFlight < 1) {
+			throw new IllegalArgumentException("maxChunksInFlight must be positive " + maxChunksInFlight);
+		}
+		this.maxChunksInFlight = maxChunksInFlight;
+		return this;
+	}
+
+	/**
+	 * @param ordered true, the default, to consume records in file order, false
+	 *                to consume chunks as they are decoded
+	 * @return this
+	 */
+	public ParallelJsonLinesDecoder<T> setOrdered(boolean ordered) {
+		this.ordered = ordered;
+		return this;
+	}
+
+	/**
+	 * @param executor runs the decoding, for instance a virtual thread executor,
+	 *                 not shut down. By default a pool of
+	 *                 {@link #setParallelism(int)} threads is created for each
+	 *                 decode
+	 * @return this
+	 */
+	public ParallelJsonLinesDecoder<T> setExecutor(ExecutorService executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * Decodes every record of the UTF-8 file
+	 *
+	 * @param path     the file
+	 * @param consumer receives each record on the calling thread
+	 * @throws IOException if the file cannot be read or the decode is interrupted
+	 */
+	public void decode(Path path, Consumer<? super T> consumer) throws IOException {
+		final var pool = executor != null ? executor : new ForkJoinPool(parallelism);
+		try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final var inFlight = maxChunksInFlight > 0 ? maxChunksInFlight : 2 * parallelism;
+			if (ordered) {
+				decodeOrdered(channel, pool, inFlight, consumer);
+			} else {
+				decodeUnordered(channel, pool, inFlight, consumer);
+			}
+		} finally {
+			if (pool != executor) {
+				pool.shutdownNow();
+			}
+		}
+	}
+
+	private void decodeOrdered(FileChannel channel, ExecutorService pool, int inFlight,
+			Consumer<? super T> consumer) throws IOException {
+		final var pending = new ArrayDeque<Future<List<T>>>();
+		try {
+			final var chunks = new Chunks(channel);
+			for (var chunk = chunks.next(); chunk != null; chunk = chunks.next()) {
+				if (pending.size() == inFlight) {
+					consume(pending.remove(), consumer);
+				}
+				final var bytes = chunk;
+				pending.add(pool.submit(() -> decodeChunk(bytes)));
+			}
+			while (!pending.isEmpty()) {
+				consume(pending.remove(), consumer);
+			}
+		} finally {
+			pending.forEach(future -> future.cancel(true));
+		}
+	}
+
+	private void decodeUnordered(FileChannel channel, ExecutorService pool, int inFlight,
+			Consumer<? super T> consumer) throws IOException {
+		final var completion = new ExecutorCompletionService<List<T>>(pool);
+		// only the chunks in flight, a consumed future would hold on to its records
+		final var pending = new HashSet<Future<List<T>>>();
+		try {
+			final var chunks = new Chunks(channel);
+			for (var chunk = chunks.next(); chunk != null; chunk = chunks.next()) {
+				if (pending.size() == inFlight) {
+					consume(take(completion, pending), consumer);
+				}
+				final var bytes = chunk;
+				pending.add(completion.submit(() -> decodeChunk(bytes)));
+			}
+			while (!pending.isEmpty()) {
+				consume(take(completion, pending), consumer);
+			}
+		} finally {
+			pending.forEach(future -> future.cancel(true));
+		}
+	}
+
+	/**
+	 * @return the next decoded chunk, removed from the pending ones
+	 */
+	private static <V> Future<V> take(ExecutorCompletionService<V> completion, Set<Future<V>> pending)
+			throws InterruptedIOException {
+		final Future<V> future;
+		try {
+			future = completion.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while decoding");
+		}
+		pending.remove(future);
+		return future;
+	}
+
+	private void consume(Future<List<T>> future, Consumer<? super T> consumer) throws InterruptedIOException {
+		final List<T> records;
+		try {
+			records = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while decoding");
+		} catch (ExecutionException e) {
+			final var cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new JsonIOException(cause);
+		}
+		records.forEach(consumer);
+	}
+
+	/**
+	 * Reports bad input between records as Gson's fromJson does within one, a
+	 * checked exception would reach the caller wrapped by the pool
+	 */
+	private List<T> decodeChunk(ByteBuffer bytes) {
+		final var reader = new JsonReader(new Utf8Reader(bytes));
+		reader.setLenient(true);
+		final var records = new ArrayList<T>();
+		try {
+			while (reader.peek() != JsonToken.END_DOCUMENT) {
+				records.add(gson.fromJson(reader, type));
+			}
+		} catch (MalformedJsonException | EOFException e) {
+			throw new JsonSyntaxException(e);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+		return records;
+	}
+
+	/**
+	 * Splits the mapped file into chunks that end after a newline or at the end
+	 * of the file
+	 */
+	private final class Chunks {
+		private final FileChannel channel;
+
+		private final long size;
+
+		private MappedByteBuffer window;
+
+		private long windowStart;
+
+		private long position;
+
+		Chunks(FileChannel channel) throws IOException {
+			this.channel = channel;
+			this.size = channel.size();
+		}
+
+		/**
+		 * @return the next chunk, null at the end of the file
+		 */
+		ByteBuffer next() throws IOException {
+			if (position >= size) {
+				return null;
+			}
+			var end = Math.min(position + chunkSize, size);
+			while (true) {
+				map(end);
+				if (end == size) {
+					break;
+				}
+				final var newline = lastNewline(position, end);
+				if (newline >= 0) {
+					end = newline + 1;
+					break;
+				}
+				end = Math.min(end + chunkSize, size);
+			}
+			final var chunk = window.slice((int) (position - windowStart), (int) (end - position));
+			position = end;
+			return chunk;
+		}
+
+		/**
+		 * Maps a window covering position to end
+		 */
+		private void map(long end) throws IOException {
+			if (window != null && position >= windowStart && end <= windowStart + window.capacity()) {
+				return;
+			}
+			final var length = Math.min(Math.max(WINDOW_SIZE, end - position), size - position);
+			if (length > Integer.MAX_VALUE) {
+				throw new IOException("line starting at byte " + position + " is longer than " + Integer.MAX_VALUE);
+			}
+			window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+			windowStart = position;
+		}
+
+		/**
+		 * @return the offset in the file of the last newline in the range, -1 if
+		 *         none
+		 */
+		private long lastNewline(long from, long to) {
+			for (var i = to - 1; i >= from; i--) {
+				if (window.get((int) (i - windowStart)) == '\n') {
+					return i;
+				}
+			}
+			return -1;
+		}
+	}
+}
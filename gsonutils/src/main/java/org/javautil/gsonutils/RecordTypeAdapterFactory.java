@@ -0,0 +1,323 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSerializer;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.internal.$Gson$Types;
+import com.google.gson.internal.Excluder;
+import com.google.gson.internal.bind.TreeTypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Serializes records through their accessor methods and deserializes them
+ * through their canonical constructor, which Gson 2.9 cannot do.
+ *
+ * Components are named and excluded as Gson does for fields, by
+ * {@link SerializedName} with its alternates, the field naming strategy and
+ * Gson's default exclusions, those of every mapper GsonUtils builds. A
+ * {@link JsonAdapter} on a component is used for its values. Components
+ * missing from the json, or excluded, are passed to the constructor as null or
+ * zero. The method handles of each record class are created once and shared by
+ * every mapper, a record whose constructor or accessors cannot be made
+ * accessible is left to Gson.
+ *
+ * @author jjs
+ *
+ */
+final class RecordTypeAdapterFactory implements TypeAdapterFactory {
+	static final RecordTypeAdapterFactory INSTANCE = new RecordTypeAdapterFactory(Excluder.DEFAULT);
+
+	/**
+	 * The canonical constructor taking an Object[] and the accessors of a record
+	 * class, in component order
+	 */
+	private static final class Handles {
+		final MethodHandle constructor;
+
+		final MethodHandle[] accessors;
+
+		Handles(MethodHandle constructor, MethodHandle[] accessors) {
+			this.constructor = constructor;
+			this.accessors = accessors;
+		}
+	}
+
+	private static final ClassValue<Handles> handles = new ClassValue<>() {
+		@Override
+		protected Handles computeValue(Class<?> type) {
+			return createHandles(type);
+		}
+	};
+
+	private final Excluder excluder;
+
+	private RecordTypeAdapterFactory(Excluder excluder) {
+		this.excluder = excluder;
+	}
+
+	@Override
+	public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+		final var raw = type.getRawType();
+		if (!raw.isRecord()) {
+			return null;
+		}
+		final var recordHandles = handles.get(raw);
+		if (recordHandles == null) {
+			return null;
+		}
+		final var recordComponents = raw.getRecordComponents();
+		final var components = new Component[recordComponents.length];
+		final var defaults = new Object[recordComponents.length];
+		final var byName = new HashMap<String, Component>();
+		for (int i = 0; i < recordComponents.length; i++) {
+			final Field field;
+			try {
+				field = raw.getDeclaredField(recordComponents[i].getName());
+			} catch (NoSuchFieldException e) {
+				throw new JsonIOException(e);
+			}
+			final var componentType = $Gson$Types.resolve(type.getType(), raw, recordComponents[i].getGenericType());
+			final var annotation = field.getAnnotation(SerializedName.class);
+			final var name = annotation == null ? gson.fieldNamingStrategy().translateName(field) : annotation.value();
+			final var jsonAdapter = field.getAnnotation(JsonAdapter.class);
+			final var annotated = jsonAdapter == null ? null
+					: jsonAdapter(gson, TypeToken.get(componentType), jsonAdapter);
+			final var component = new Component(gson, i, name, componentType,
+					annotated != null ? annotated : gson.getAdapter(TypeToken.get(componentType)), annotated == null,
+					recordHandles.accessors[i], !excludeField(field, true), !excludeField(field, false));
+			components[i] = component;
+			defaults[i] = recordComponents[i].getType().isPrimitive()
+					? Array.get(Array.newInstance(recordComponents[i].getType(), 1), 0)
+					: null;
+			if (component.deserialized) {
+				put(byName, type, component.name, component);
+				if (annotation != null) {
+					for (final var alternate : annotation.alternate()) {
+						put(byName, type, alternate, component);
+					}
+				}
+			}
+		}
+		return new Adapter<>(recordHandles.constructor, components, byName, defaults);
+	}
+
+	/**
+	 * As ReflectiveTypeAdapterFactory.excludeField, the declared class of the
+	 * component is checked as well
+	 */
+	private boolean excludeField(Field field, boolean serialize) {
+		return excluder.excludeClass(field.getType(), serialize) || excluder.excludeField(field, serialize);
+	}
+
+	/**
+	 * Creates the adapter a {@link JsonAdapter} names, as Gson does for a field
+	 *
+	 * @return null if the named factory does not handle the type
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static TypeAdapter<?> jsonAdapter(Gson gson, TypeToken<?> type, JsonAdapter annotation) {
+		final Object instance;
+		try {
+			final var constructor = annotation.value().getDeclaredConstructor();
+			constructor.setAccessible(true);
+			instance = constructor.newInstance();
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			throw new JsonIOException("unable to create " + annotation.value().getName(), e);
+		}
+		final TypeAdapter<?> adapter;
+		if (instance instanceof TypeAdapter) {
+			adapter = (TypeAdapter<?>) instance;
+		} else if (instance instanceof TypeAdapterFactory) {
+			adapter = ((TypeAdapterFactory) instance).create(gson, type);
+		} else if (instance instanceof JsonSerializer || instance instanceof JsonDeserializer) {
+			// the missing half goes to the mapper, Gson 2.9 would pick its reflective adapter
+			adapter = new TreeTypeAdapter(
+					instance instanceof JsonSerializer ? (JsonSerializer) instance
+							: (JsonSerializer) (src, typeOfSrc, context) -> context.serialize(src, typeOfSrc),
+					instance instanceof JsonDeserializer ? (JsonDeserializer) instance
+							: (JsonDeserializer) (json, typeOfT, context) -> context.deserialize(json, typeOfT),
+					gson, type, null);
+		} else {
+			throw new IllegalArgumentException("Invalid attempt to bind an instance of " + instance.getClass().getName()
+					+ " as a @JsonAdapter for " + type + ". @JsonAdapter value must be a TypeAdapter,"
+					+ " TypeAdapterFactory, JsonSerializer or JsonDeserializer.");
+		}
+		return adapter != null && annotation.nullSafe() ? adapter.nullSafe() : adapter;
+	}
+
+	private static void put(Map<String, Component> byName, TypeToken<?> type, String name, Component component) {
+		if (byName.put(name, component) != null) {
+			throw new IllegalArgumentException(type.getType() + " declares multiple JSON fields named " + name);
+		}
+	}
+
+	/**
+	 * @return null if the record cannot be made accessible, for instance in a
+	 *         module that is not open
+	 */
+	private static Handles createHandles(Class<?> type) {
+		final var lookup = MethodHandles.lookup();
+		final var components = type.getRecordComponents();
+		final var parameterTypes = new Class<?>[components.length];
+		final var accessors = new MethodHandle[components.length];
+		try {
+			for (int i = 0; i < components.length; i++) {
+				parameterTypes[i] = components[i].getType();
+				final var accessor = components[i].getAccessor();
+				accessor.setAccessible(true);
+				accessors[i] = lookup.unreflect(accessor).asType(MethodType.methodType(Object.class, Object.class));
+			}
+			final var constructor = type.getDeclaredConstructor(parameterTypes);
+			constructor.setAccessible(true);
+			return new Handles(lookup.unreflectConstructor(constructor)
+					.asType(MethodType.methodType(Object.class, parameterTypes).generic())
+					.asSpreader(Object[].class, components.length)
+					.asType(MethodType.methodType(Object.class, Object[].class)), accessors);
+		} catch (RuntimeException | NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * One record component bound to the adapter for its type
+	 */
+	private static final class Component {
+		final Gson gson;
+
+		final int index;
+
+		final String name;
+
+		final Type type;
+
+		final TypeAdapter<Object> adapter;
+
+		final MethodHandle accessor;
+
+		final boolean serialized;
+
+		final boolean deserialized;
+
+		final boolean runtimeTyped;
+
+		/**
+		 * @param runtimeTyped false for an adapter of a {@link JsonAdapter}, used
+		 *                     whatever the runtime class as Gson does
+		 */
+		@SuppressWarnings("unchecked")
+		Component(Gson gson, int index, String name, Type type, TypeAdapter<?> adapter, boolean runtimeTyped,
+				MethodHandle accessor, boolean serialized, boolean deserialized) {
+			this.gson = gson;
+			this.index = index;
+			this.name = name;
+			this.type = type;
+			this.adapter = (TypeAdapter<Object>) adapter;
+			this.accessor = accessor;
+			this.serialized = serialized;
+			this.deserialized = deserialized;
+			this.runtimeTyped = runtimeTyped && AccessorTypeAdapterFactory.isRuntimeTyped(type);
+		}
+
+		void write(JsonWriter out, Object record) throws Throwable {
+			final var value = (Object) accessor.invokeExact(record);
+			out.name(name);
+			(runtimeTyped ? AccessorTypeAdapterFactory.runtimeAdapter(gson, adapter, type, value) : adapter)
+					.write(out, value);
+		}
+
+		void read(JsonReader in, Object[] arguments) throws IOException {
+			final var value = adapter.read(in);
+			if (value != null) {
+				arguments[index] = value;
+			}
+		}
+	}
+
+	private static final class Adapter<T> extends TypeAdapter<T> {
+		private final MethodHandle constructor;
+
+		private final Component[] components;
+
+		private final Map<String, Component> byName;
+
+		/** the constructor arguments of components missing from the json */
+		private final Object[] defaults;
+
+		Adapter(MethodHandle constructor, Component[] components, Map<String, Component> byName,
+				Object[] defaults) {
+			this.constructor = constructor;
+			this.components = components;
+			this.byName = byName;
+			this.defaults = defaults;
+		}
+
+		@Override
+		public void write(JsonWriter out, T value) throws IOException {
+			if (value == null) {
+				out.nullValue();
+				return;
+			}
+			out.beginObject();
+			try {
+				for (final var component : components) {
+					if (component.serialized) {
+						component.write(out, value);
+					}
+				}
+			} catch (IOException e) {
+				throw e;
+			} catch (Throwable e) {
+				throw AccessorTypeAdapterFactory.rethrow(e);
+			}
+			out.endObject();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T read(JsonReader in) throws IOException {
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				return null;
+			}
+			final var arguments = defaults.clone();
+			try {
+				in.beginObject();
+				while (in.hasNext()) {
+					final var component = byName.get(in.nextName());
+					if (component == null) {
+						in.skipValue();
+					} else {
+						component.read(in, arguments);
+					}
+				}
+				in.endObject();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e);
+			}
+			try {
+				return (T) constructor.invokeExact(arguments);
+			} catch (Throwable e) {
+				throw AccessorTypeAdapterFactory.rethrow(e);
+			}
+		}
+	}
+}
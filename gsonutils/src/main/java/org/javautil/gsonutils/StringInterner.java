@@ -0,0 +1,80 @@
+package org.javautil.gsonutils;
+
+/**
+ * A bounded cache that returns one canonical instance for equal strings, used
+ * to share the keys of maps built from JSON, where every row of a large array
+ * would otherwise hold its own copy of the same names.
+ *
+ * The cache is direct mapped, a string replaces whatever occupied its slot, so
+ * memory stays fixed and lookups cost one hash and one equals. Values are only
+ * interned when no longer than {@code maxValueLength}, as short values such as
+ * codes and statuses are the ones likely to repeat.
+ *
+ * An interner may be used for a single call or shared across calls and
+ * threads, a slot read while another thread replaces it only costs a miss.
+ *
+ * @author jjs
+ *
+ */
+public final class StringInterner {
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	private final String[] table;
+
+	private final int mask;
+
+	private final int maxValueLength;
+
+	/**
+	 * Interns keys only, in {@link #DEFAULT_CAPACITY} slots
+	 */
+	public StringInterner() {
+		this(DEFAULT_CAPACITY, 0);
+	}
+
+	/**
+	 * @param capacity       the number of slots, rounded up to a power of two
+	 * @param maxValueLength the longest string value interned, 0 for none
+	 */
+	public StringInterner(int capacity, int maxValueLength) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("capacity " + capacity);
+		}
+		if (maxValueLength < 0) {
+			throw new IllegalArgumentException("maxValueLength " + maxValueLength);
+		}
+		var size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.table = new String[size];
+		this.mask = table.length - 1;
+		this.maxValueLength = maxValueLength;
+	}
+
+	/**
+	 * @param string a map key
+	 * @return the cached instance equal to the string, or the string itself
+	 */
+	public String intern(String string) {
+		if (string == null) {
+			return null;
+		}
+		final var hash = string.hashCode();
+		final var slot = (hash ^ hash >>> 16) & mask;
+		final var cached = table[slot];
+		if (cached != null && cached.equals(string)) {
+			return cached;
+		}
+		table[slot] = string;
+		return string;
+	}
+
+	/**
+	 * @param string a string value
+	 * @return the interned string if short enough, otherwise the string
+	 */
+	public String internValue(String string) {
+		return string != null && string.length() <= maxValueLength ? intern(string) : string;
+	}
+}
@@ -0,0 +1,72 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Streaming TypeAdapter for values that are marshalled as a single JSON string.
+ *
+ * Writes directly to the {@link JsonWriter} and reads directly from the
+ * {@link JsonReader} so no JsonPrimitive or JsonElement tree is built per value.
+ * Null safe in both directions.
+ *
+ * @author jjs
+ *
+ * @param <T> the type being marshalled
+ */
+public abstract class StringTypeAdapter<T> extends TypeAdapter<T> {
+
+	/**
+	 * @param parser    converts the JSON string to a value
+	 * @param formatter converts the value to a JSON string
+	 * @return an adapter delegating to the parser and formatter
+	 */
+	public static <T> StringTypeAdapter<T> of(Function<String, T> parser, Function<T, String> formatter) {
+		return new StringTypeAdapter<>() {
+			@Override
+			protected T parse(String text) {
+				return parser.apply(text);
+			}
+
+			@Override
+			protected String format(T value) {
+				return formatter.apply(value);
+			}
+		};
+	}
+
+	/**
+	 * @param text the JSON string, never null
+	 * @return the value
+	 */
+	protected abstract T parse(String text);
+
+	/**
+	 * @param value the value, never null
+	 * @return the JSON string
+	 */
+	protected abstract String format(T value);
+
+	@Override
+	public T read(JsonReader in) throws IOException {
+		if (in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return null;
+		}
+		return parse(in.nextString());
+	}
+
+	@Override
+	public void write(JsonWriter out, T value) throws IOException {
+		if (value == null) {
+			out.nullValue();
+		} else {
+			out.value(format(value));
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package org.javautil.gsonutils;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * A Reader that decodes UTF-8 straight from a ByteBuffer into the caller's
+ * array, so bytes are parsed in a single pass without an intermediate String
+ * or a copy of the input.
+ *
+ * Malformed input is replaced by U+FFFD as {@link java.io.InputStreamReader}
+ * does. The buffer is read from its position, which is advanced.
+ *
+ * Not thread safe.
+ *
+ * @author jjs
+ *
+ */
+final class Utf8Reader extends Reader {
+	private static final char REPLACEMENT = '\ufffd';
+
+	private final ByteBuffer in;
+
+	private char lowSurrogate;
+
+	/**
+	 * @param in the UTF-8 bytes from position to limit
+	 */
+	Utf8Reader(ByteBuffer in) {
+		this.in = in;
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) {
+		if (len == 0) {
+			return 0;
+		}
+		if (lowSurrogate == 0 && !in.hasRemaining()) {
+			return -1;
+		}
+		var n = off;
+		final var end = off + len;
+		if (lowSurrogate != 0) {
+			cbuf[n++] = lowSurrogate;
+			lowSurrogate = 0;
+		}
+		while (n < end && in.hasRemaining()) {
+			final int b = in.get();
+			if (b >= 0) {
+				cbuf[n++] = (char) b;
+				continue;
+			}
+			final int codePoint = decode(b);
+			if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+				cbuf[n++] = (char) codePoint;
+			} else {
+				cbuf[n++] = Character.highSurrogate(codePoint);
+				final var low = Character.lowSurrogate(codePoint);
+				if (n < end) {
+					cbuf[n++] = low;
+				} else {
+					lowSurrogate = low;
+				}
+			}
+		}
+		return n - off;
+	}
+
+	/**
+	 * @param lead a byte that starts a multi byte sequence
+	 * @return the code point, or the replacement character if the sequence is
+	 *         malformed, in which case only the lead byte is consumed
+	 */
+	private int decode(int lead) {
+		final int length;
+		final int min;
+		int codePoint;
+		if ((lead & 0xe0) == 0xc0) {
+			length = 1;
+			min = 0x80;
+			codePoint = lead & 0x1f;
+		} else if ((lead & 0xf0) == 0xe0) {
+			length = 2;
+			min = 0x800;
+			codePoint = lead & 0x0f;
+		} else if ((lead & 0xf8) == 0xf0) {
+			length = 3;
+			min = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+			codePoint = lead & 0x07;
+		} else {
+			return REPLACEMENT;
+		}
+		final var position = in.position();
+		if (in.remaining() < length) {
+			return REPLACEMENT;
+		}
+		for (int i = 0; i < length; i++) {
+			final int b = in.get(position + i);
+			if ((b & 0xc0) != 0x80) {
+				return REPLACEMENT;
+			}
+			codePoint = codePoint << 6 | b & 0x3f;
+		}
+		if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+				|| codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+			return REPLACEMENT;
+		}
+		in.position(position + length);
+		return codePoint;
+	}
+
+	@Override
+	public void close() {
+	}
+}
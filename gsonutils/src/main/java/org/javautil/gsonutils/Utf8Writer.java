@@ -0,0 +1,175 @@
+package org.javautil.gsonutils;
+
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A Writer that encodes characters to UTF-8 as they are written, so
+ * serialization produces bytes in a single pass without an intermediate
+ * String.
+ *
+ * The bytes are collected in a growable array, or when a target is given,
+ * moved to the target each time the array fills. Unpaired surrogates are
+ * written as '?' as {@link String#getBytes(java.nio.charset.Charset)} does.
+ *
+ * Writers come from a bounded pool, as {@link JsonBuffer} does for characters.
+ * Not thread safe, a writer belongs to one caller between {@link #acquire()}
+ * and {@link #release()}.
+ *
+ * @author jjs
+ *
+ */
+final class Utf8Writer extends Writer {
+	static final int INITIAL_BYTES = 8 * 1024;
+
+	static final int MAX_RETAINED_BYTES = 1024 * 1024;
+
+	private static final ArrayBlockingQueue<Utf8Writer> pool = new ArrayBlockingQueue<>(
+			2 * Runtime.getRuntime().availableProcessors());
+
+	private byte[] bytes = new byte[INITIAL_BYTES];
+
+	private int count;
+
+	private ByteBuffer target;
+
+	private char highSurrogate;
+
+	private Utf8Writer() {
+	}
+
+	/**
+	 * @return an empty writer collecting into its own array
+	 */
+	static Utf8Writer acquire() {
+		final var writer = pool.poll();
+		return writer != null ? writer : new Utf8Writer();
+	}
+
+	/**
+	 * @param target receives the bytes from its position as the internal array
+	 *               fills and on {@link #flush()}
+	 * @return an empty writer
+	 */
+	static Utf8Writer acquire(ByteBuffer target) {
+		final var writer = acquire();
+		writer.target = target;
+		return writer;
+	}
+
+	/**
+	 * Empties the writer and returns it to the pool, the writer must not be used
+	 * afterwards
+	 */
+	void release() {
+		count = 0;
+		target = null;
+		highSurrogate = 0;
+		if (bytes.length <= MAX_RETAINED_BYTES) {
+			pool.offer(this);
+		}
+	}
+
+	private void ensureCapacity(int additional) {
+		if (count + additional <= bytes.length) {
+			return;
+		}
+		if (target != null) {
+			drain();
+		} else {
+			final var required = count + additional;
+			if (required < 0) {
+				throw new OutOfMemoryError("json larger than " + Integer.MAX_VALUE + " bytes");
+			}
+			bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+		}
+	}
+
+	private void drain() {
+		target.put(bytes, 0, count);
+		count = 0;
+	}
+
+	@Override
+	public void write(int c) {
+		encode((char) c);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) {
+		for (int i = off, end = off + len; i < end; i++) {
+			encode(cbuf[i]);
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len) {
+		for (int i = off, end = off + len; i < end; i++) {
+			encode(str.charAt(i));
+		}
+	}
+
+	private void encode(char c) {
+		ensureCapacity(4);
+		if (highSurrogate != 0) {
+			final var high = highSurrogate;
+			highSurrogate = 0;
+			if (Character.isLowSurrogate(c)) {
+				final int codePoint = Character.toCodePoint(high, c);
+				bytes[count++] = (byte) (0xf0 | codePoint >> 18);
+				bytes[count++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+				bytes[count++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+				bytes[count++] = (byte) (0x80 | codePoint & 0x3f);
+				return;
+			}
+			bytes[count++] = '?';
+		}
+		if (c < 0x80) {
+			bytes[count++] = (byte) c;
+		} else if (c < 0x800) {
+			bytes[count++] = (byte) (0xc0 | c >> 6);
+			bytes[count++] = (byte) (0x80 | c & 0x3f);
+		} else if (Character.isHighSurrogate(c)) {
+			highSurrogate = c;
+		} else if (Character.isLowSurrogate(c)) {
+			bytes[count++] = '?';
+		} else {
+			bytes[count++] = (byte) (0xe0 | c >> 12);
+			bytes[count++] = (byte) (0x80 | c >> 6 & 0x3f);
+			bytes[count++] = (byte) (0x80 | c & 0x3f);
+		}
+	}
+
+	/**
+	 * Writes an unpaired trailing high surrogate and moves the bytes to the
+	 * target, if any
+	 *
+	 * @throws BufferOverflowException if the target has too little room
+	 */
+	@Override
+	public void flush() {
+		if (highSurrogate != 0) {
+			highSurrogate = 0;
+			ensureCapacity(1);
+			bytes[count++] = '?';
+		}
+		if (target != null) {
+			drain();
+		}
+	}
+
+	@Override
+	public void close() {
+		flush();
+	}
+
+	/**
+	 * @return a copy of the bytes written, call {@link #flush()} first
+	 */
+	byte[] toByteArray() {
+		return Arrays.copyOf(bytes, count);
+	}
+}
@@ -0,0 +1,433 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.yaml.snakeyaml.DumperOptions.ScalarStyle;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.constructor.DuplicateKeyException;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.internal.Streams;
+import com.google.gson.internal.bind.JsonTreeWriter;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Converts a YAML document to JSON by driving the SnakeYAML parser events
+ * straight into a JsonWriter, without building the java object graph that
+ * {@code Yaml.load} would.
+ *
+ * Scalars are resolved and constructed with the same rules as
+ * {@link SafeConstructor} and written with the adapters of the mapper, so the
+ * output matches writing the loaded object with that mapper. Anchored nodes
+ * are buffered as events so aliases can be replayed. Mapping entries are
+ * written as they are read, from a {@code <<} merge key on the rest of the
+ * mapping is buffered so its keys replace merged ones as in the loaded map.
+ *
+ * Each instance holds its own parser state, a converter is used by one thread
+ * for one document.
+ *
+ * Differences from {@code Yaml.load}: {@code !!set}, {@code !!omap} and
+ * {@code !!pairs} collections are written as plain objects and arrays, and
+ * duplicate keys are rejected as with
+ * {@link LoaderOptions#setAllowDuplicateKeys(boolean)} false, keys such as 1
+ * and "1" that would have the same JSON name included.
+ *
+ * @author jjs
+ *
+ */
+final class YamlJsonConverter {
+
+	/**
+	 * Exposes the scalar constructors of SafeConstructor
+	 */
+	private static final class ScalarConstructor extends SafeConstructor {
+		Object construct(Tag tag, ScalarEvent event) {
+			// an unknown tag gets the constructor that throws
+			final var construct = yamlConstructors.getOrDefault(tag, yamlConstructors.get(null));
+			return construct.construct(new ScalarNode(tag, event.getValue(), event.getStartMark(), event.getEndMark(),
+					event.getScalarStyle()));
+		}
+
+		/**
+		 * Throws as SafeConstructor does for a collection tag it cannot construct
+		 */
+		void checkTag(Tag tag, CollectionStartEvent event) {
+			if (!yamlConstructors.containsKey(tag)) {
+				yamlConstructors.get(null).construct(
+						new ScalarNode(tag, "", event.getStartMark(), event.getEndMark(), ScalarStyle.PLAIN));
+			}
+		}
+	}
+
+	private static final class DuplicateKey extends DuplicateKeyException {
+		private static final long serialVersionUID = 1L;
+
+		DuplicateKey(Mark contextMark, Object key, Mark problemMark) {
+			super(contextMark, key, problemMark);
+		}
+	}
+
+	/**
+	 * A mapping entry with its value buffered, or the entries merged by a
+	 * {@code <<} key
+	 */
+	private static final class Entry {
+		final String name;
+		final JsonElement value;
+		final List<Entry> merged;
+
+		Entry(String name, JsonElement value) {
+			this.name = name;
+			this.value = value;
+			this.merged = null;
+		}
+
+		Entry(List<Entry> merged) {
+			this.name = null;
+			this.value = null;
+			this.merged = merged;
+		}
+	}
+
+	/**
+	 * The events of an anchored collection, collected until it is closed
+	 */
+	private static final class Recording {
+		final String anchor;
+		final List<Event> events = new ArrayList<>();
+		int depth;
+
+		Recording(String anchor) {
+			this.anchor = anchor;
+		}
+	}
+
+	private final Parser parser;
+
+	private final Gson gson;
+
+	private final Resolver resolver = new Resolver();
+
+	private final ScalarConstructor constructor = new ScalarConstructor();
+
+	private final Map<String, List<Event>> anchors = new HashMap<>();
+
+	private final List<Recording> recordings = new ArrayList<>();
+
+	private final Deque<Iterator<Event>> replays = new ArrayDeque<>();
+
+	private final int maxAliasesForCollections = new LoaderOptions().getMaxAliasesForCollections();
+
+	private int collectionAliases;
+
+	/**
+	 * @param yaml the yaml to be converted, not closed
+	 * @param gson the mapper whose adapters write constructed scalars
+	 */
+	YamlJsonConverter(Reader yaml, Gson gson) {
+		this.parser = new ParserImpl(new StreamReader(yaml));
+		this.gson = gson;
+	}
+
+	/**
+	 * Writes the single document of the stream, null if the stream is empty.
+	 *
+	 * @param out receives the json
+	 * @throws IOException
+	 */
+	void convert(JsonWriter out) throws IOException {
+		expect(parser.getEvent(), Event.ID.StreamStart);
+		if (parser.checkEvent(Event.ID.StreamEnd)) {
+			out.nullValue();
+		} else {
+			expect(parser.getEvent(), Event.ID.DocumentStart);
+			value(next(), out);
+			expect(parser.getEvent(), Event.ID.DocumentEnd);
+			if (!parser.checkEvent(Event.ID.StreamEnd)) {
+				throw new YAMLException("expected a single document in the stream but found another document");
+			}
+		}
+		parser.getEvent();
+	}
+
+	private static void expect(Event event, Event.ID id) {
+		if (!event.is(id)) {
+			throw new YAMLException("expected " + id + " but found " + event);
+		}
+	}
+
+	/**
+	 * @return the next node event with aliases replaced by the anchored events
+	 */
+	private Event next() {
+		Event event;
+		boolean replayed = false;
+		while (true) {
+			while (!replays.isEmpty() && !replays.peek().hasNext()) {
+				replays.pop();
+			}
+			if (replays.isEmpty()) {
+				event = parser.getEvent();
+			} else {
+				event = replays.peek().next();
+				replayed = true;
+			}
+			if (!event.is(Event.ID.Alias)) {
+				break;
+			}
+			final var anchor = ((AliasEvent) event).getAnchor();
+			final var events = anchors.get(anchor);
+			if (events == null) {
+				throw new YAMLException("found undefined alias " + anchor);
+			}
+			if (events.size() > 1 && ++collectionAliases > maxAliasesForCollections) {
+				throw new YAMLException(
+						"Number of aliases for non-scalar nodes exceeds the specified max=" + maxAliasesForCollections);
+			}
+			replays.push(events.iterator());
+		}
+		record(event);
+		if (!replayed && event instanceof NodeEvent) {
+			final var anchor = ((NodeEvent) event).getAnchor();
+			if (anchor != null) {
+				if (event instanceof ScalarEvent) {
+					anchors.put(anchor, List.of(event));
+				} else {
+					final var recording = new Recording(anchor);
+					recording.events.add(event);
+					recording.depth = 1;
+					recordings.add(recording);
+				}
+			}
+		}
+		return event;
+	}
+
+	private void record(Event event) {
+		for (var i = recordings.size() - 1; i >= 0; i--) {
+			final var recording = recordings.get(i);
+			recording.events.add(event);
+			if (event instanceof CollectionStartEvent) {
+				recording.depth++;
+			} else if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+				if (--recording.depth == 0) {
+					anchors.put(recording.anchor, recording.events);
+					recordings.remove(i);
+				}
+			}
+		}
+	}
+
+	private void value(Event event, JsonWriter out) throws IOException {
+		switch (event.getEventId()) {
+		case Scalar:
+			scalar((ScalarEvent) event, out);
+			break;
+		case SequenceStart:
+			checkTag((CollectionStartEvent) event);
+			out.beginArray();
+			for (var element = next(); !element.is(Event.ID.SequenceEnd); element = next()) {
+				value(element, out);
+			}
+			out.endArray();
+			break;
+		case MappingStart:
+			checkTag((CollectionStartEvent) event);
+			mapping(event, out);
+			break;
+		default:
+			throw new YAMLException("expected a node but found " + event);
+		}
+	}
+
+	/**
+	 * Writes the entries of a mapping whose start has been read, through its end.
+	 * The entries are written as they are read until a merge key, then the rest
+	 * is buffered and collapsed.
+	 */
+	private void mapping(Event start, JsonWriter out) throws IOException {
+		out.beginObject();
+		final var names = new HashSet<String>();
+		for (var key = next(); !key.is(Event.ID.MappingEnd); key = next()) {
+			if (isMerge(key)) {
+				final var written = Set.copyOf(names);
+				final var tuples = new ArrayList<Entry>();
+				tuples.add(new Entry(merge(next())));
+				for (final var entry : collapse(tuples(start, tuples, names), written)) {
+					out.name(entry.name);
+					Streams.write(entry.value, out);
+				}
+				break;
+			}
+			out.name(name(start, key, names));
+			value(next(), out);
+		}
+		out.endObject();
+	}
+
+	/**
+	 * @return the collapsed entries of a mapping whose start has been read,
+	 *         through its end
+	 */
+	private List<Entry> entries(Event start) throws IOException {
+		return collapse(tuples(start, new ArrayList<>(), new HashSet<>()), Set.of());
+	}
+
+	/**
+	 * Buffers the entries of a mapping through its end
+	 *
+	 * @param names the keys of the mapping read so far, extended
+	 * @return the tuples
+	 */
+	private List<Entry> tuples(Event start, List<Entry> tuples, Set<String> names) throws IOException {
+		for (var key = next(); !key.is(Event.ID.MappingEnd); key = next()) {
+			if (isMerge(key)) {
+				tuples.add(new Entry(merge(next())));
+			} else {
+				tuples.add(new Entry(name(start, key, names), tree(next())));
+			}
+		}
+		return tuples;
+	}
+
+	/**
+	 * Collapses the tuples as SafeConstructor does: merged entries are added in
+	 * order unless the key is already present and the entries of the mapping
+	 * itself replace merged ones.
+	 *
+	 * @param written the keys of the mapping already written before the tuples
+	 */
+	private static List<Entry> collapse(List<Entry> tuples, Set<String> written) {
+		final var entries = new ArrayList<Entry>(tuples.size());
+		final var indices = new HashMap<String, Integer>();
+		for (final var tuple : tuples) {
+			if (tuple.merged != null) {
+				for (final var entry : tuple.merged) {
+					if (!written.contains(entry.name) && !indices.containsKey(entry.name)) {
+						indices.put(entry.name, entries.size());
+						entries.add(entry);
+					}
+				}
+			} else {
+				final var index = indices.get(tuple.name);
+				if (index == null) {
+					entries.add(tuple);
+				} else {
+					entries.set(index, tuple);
+				}
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * @return the entries of the merged mapping, or of each mapping of a
+	 *         sequence in order
+	 */
+	private List<Entry> merge(Event event) throws IOException {
+		if (event.is(Event.ID.MappingStart)) {
+			return entries(event);
+		}
+		if (!event.is(Event.ID.SequenceStart)) {
+			throw new YAMLException("expected a mapping or list of mappings for merging, but found " + event);
+		}
+		final var merged = new ArrayList<Entry>();
+		for (var element = next(); !element.is(Event.ID.SequenceEnd); element = next()) {
+			if (!element.is(Event.ID.MappingStart)) {
+				throw new YAMLException("expected a mapping for merging, but found " + element);
+			}
+			merged.addAll(entries(element));
+		}
+		return merged;
+	}
+
+	/**
+	 * @return the value written to a tree, so a later entry can replace it
+	 */
+	private JsonElement tree(Event event) throws IOException {
+		final var tree = new JsonTreeWriter();
+		tree.setLenient(true);
+		tree.setSerializeNulls(true);
+		value(event, tree);
+		return tree.get();
+	}
+
+	private void checkTag(CollectionStartEvent event) {
+		final var tag = event.getTag();
+		if (tag != null && !tag.equals("!")) {
+			constructor.checkTag(new Tag(tag), event);
+		}
+	}
+
+	private Tag tag(ScalarEvent event) {
+		final var tag = event.getTag();
+		if (tag == null || tag.equals("!")) {
+			return resolver.resolve(NodeId.scalar, event.getValue(), event.getImplicit().canOmitTagInPlainScalar());
+		}
+		return new Tag(tag);
+	}
+
+	private boolean isMerge(Event key) {
+		return key instanceof ScalarEvent && tag((ScalarEvent) key).equals(Tag.MERGE);
+	}
+
+	/**
+	 * @param names the keys of the mapping read so far, extended by this one
+	 * @return the JSON name of the key as SafeConstructor constructs it
+	 */
+	private String name(Event start, Event event, Set<String> names) {
+		if (!(event instanceof ScalarEvent)) {
+			throw new JsonSyntaxException("Only scalar mapping keys can be converted to JSON, found " + event);
+		}
+		final var scalar = (ScalarEvent) event;
+		final var key = constructor.construct(tag(scalar), scalar);
+		// as Gson's map adapter names the keys of the loaded map
+		final var name = String.valueOf(key);
+		if (!names.add(name)) {
+			throw new DuplicateKey(start.getStartMark(), key, event.getStartMark());
+		}
+		return name;
+	}
+
+	private void scalar(ScalarEvent event, JsonWriter out) throws IOException {
+		final var value = constructor.construct(tag(event), event);
+		if (value == null) {
+			out.nullValue();
+		} else if (value instanceof String) {
+			out.value((String) value);
+		} else if (value instanceof Boolean) {
+			out.value((Boolean) value);
+		} else if (value instanceof Number) {
+			out.value((Number) value);
+		} else {
+			gson.toJson(value, value.getClass(), out);
+		}
+	}
+}
@@ -0,0 +1,288 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.emitter.Emitter;
+import org.yaml.snakeyaml.events.DocumentEndEvent;
+import org.yaml.snakeyaml.events.DocumentStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ImplicitTuple;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.events.StreamEndEvent;
+import org.yaml.snakeyaml.events.StreamStartEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A JsonWriter that emits YAML, translating each call into SnakeYAML emitter
+ * events.
+ *
+ * Beans written through a mapper use the mapper's adapters and JSON read with
+ * a JsonReader can be copied in, so neither path builds an intermediate map.
+ * Objects become block mappings and arrays block sequences. Strings that would
+ * otherwise be read back as another type are quoted by the emitter.
+ *
+ * One document is written, the stream is ended when the top level value is
+ * complete.
+ *
+ * @author jjs
+ *
+ */
+final class YamlJsonWriter extends JsonWriter {
+	private static final ImplicitTuple PLAIN = new ImplicitTuple(true, false);
+
+	private static final ImplicitTuple STRING = new ImplicitTuple(false, true);
+
+	private static final ImplicitTuple PLAIN_STRING = new ImplicitTuple(true, true);
+
+	private static final ImplicitTuple TAGGED = new ImplicitTuple(false, false);
+
+	private final Writer out;
+
+	private final Emitter emitter;
+
+	private final Resolver resolver = new Resolver();
+
+	private String pendingName;
+
+	private int depth;
+
+	private boolean started;
+
+	private boolean ended;
+
+	/**
+	 * @param out receives the yaml
+	 */
+	YamlJsonWriter(Writer out) {
+		super(out);
+		this.out = out;
+		final var options = new DumperOptions();
+		options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+		this.emitter = new Emitter(out, options);
+	}
+
+	private void emit(Event event) throws IOException {
+		emitter.emit(event);
+	}
+
+	/**
+	 * Starts the document before the first value and writes a pending name.
+	 *
+	 * @param isNull true if the value is null
+	 * @return false if the value and its name are to be skipped
+	 */
+	private boolean beforeValue(boolean isNull) throws IOException {
+		if (ended) {
+			throw new IllegalStateException("YAML document already written");
+		}
+		if (!started) {
+			started = true;
+			emit(new StreamStartEvent(null, null));
+			emit(new DocumentStartEvent(null, null, false, null, null));
+		}
+		if (pendingName != null) {
+			final var name = pendingName;
+			pendingName = null;
+			if (isNull && !getSerializeNulls()) {
+				return false;
+			}
+			string(name);
+		}
+		return true;
+	}
+
+	private void afterValue() throws IOException {
+		if (depth == 0) {
+			ended = true;
+			emit(new DocumentEndEvent(null, null, false));
+			emit(new StreamEndEvent(null, null));
+		}
+	}
+
+	private void string(String value) throws IOException {
+		final var tuple = resolver.resolve(NodeId.scalar, value, true).equals(Tag.STR) ? PLAIN_STRING : STRING;
+		emit(new ScalarEvent(null, Tag.STR.getValue(), tuple, value, null, null, DumperOptions.ScalarStyle.PLAIN));
+	}
+
+	private void scalar(Tag tag, String value) throws IOException {
+		scalar(tag, PLAIN, value);
+	}
+
+	private void scalar(Tag tag, ImplicitTuple tuple, String value) throws IOException {
+		emit(new ScalarEvent(null, tag.getValue(), tuple, value, null, null, DumperOptions.ScalarStyle.PLAIN));
+	}
+
+	@Override
+	public JsonWriter beginArray() throws IOException {
+		beforeValue(false);
+		depth++;
+		emit(new SequenceStartEvent(null, Tag.SEQ.getValue(), true, null, null, DumperOptions.FlowStyle.BLOCK));
+		return this;
+	}
+
+	@Override
+	public JsonWriter endArray() throws IOException {
+		if (depth == 0 || pendingName != null) {
+			throw new IllegalStateException("Nesting problem.");
+		}
+		emit(new SequenceEndEvent(null, null));
+		depth--;
+		afterValue();
+		return this;
+	}
+
+	@Override
+	public JsonWriter beginObject() throws IOException {
+		beforeValue(false);
+		depth++;
+		emit(new MappingStartEvent(null, Tag.MAP.getValue(), true, null, null, DumperOptions.FlowStyle.BLOCK));
+		return this;
+	}
+
+	@Override
+	public JsonWriter endObject() throws IOException {
+		if (depth == 0 || pendingName != null) {
+			throw new IllegalStateException("Nesting problem.");
+		}
+		emit(new MappingEndEvent(null, null));
+		depth--;
+		afterValue();
+		return this;
+	}
+
+	@Override
+	public JsonWriter name(String name) throws IOException {
+		if (name == null) {
+			throw new NullPointerException("name == null");
+		}
+		if (pendingName != null || depth == 0) {
+			throw new IllegalStateException();
+		}
+		pendingName = name;
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(String value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		if (beforeValue(false)) {
+			string(value);
+			afterValue();
+		}
+		return this;
+	}
+
+	@Override
+	public JsonWriter jsonValue(String value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		final var reader = new JsonReader(new StringReader(value));
+		reader.setLenient(true);
+		JsonCopier.copy(reader, this);
+		return this;
+	}
+
+	@Override
+	public JsonWriter nullValue() throws IOException {
+		if (beforeValue(true)) {
+			scalar(Tag.NULL, "null");
+			afterValue();
+		}
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(boolean value) throws IOException {
+		if (beforeValue(false)) {
+			scalar(Tag.BOOL, Boolean.toString(value));
+			afterValue();
+		}
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(Boolean value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		return value(value.booleanValue());
+	}
+
+	@Override
+	public JsonWriter value(double value) throws IOException {
+		if (!isLenient() && (Double.isNaN(value) || Double.isInfinite(value))) {
+			throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+		}
+		return number(Double.toString(value));
+	}
+
+	@Override
+	public JsonWriter value(long value) throws IOException {
+		return number(Long.toString(value));
+	}
+
+	@Override
+	public JsonWriter value(Number value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		final var text = value.toString();
+		if (!isLenient() && (text.equals("-Infinity") || text.equals("Infinity") || text.equals("NaN"))) {
+			throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+		}
+		return number(text);
+	}
+
+	private JsonWriter number(String text) throws IOException {
+		if (beforeValue(false)) {
+			switch (text) {
+			case "NaN":
+				scalar(Tag.FLOAT, ".nan");
+				break;
+			case "Infinity":
+				scalar(Tag.FLOAT, ".inf");
+				break;
+			case "-Infinity":
+				scalar(Tag.FLOAT, "-.inf");
+				break;
+			default:
+				final var tag = resolver.resolve(NodeId.scalar, text, true);
+				if (tag.equals(Tag.INT) || tag.equals(Tag.FLOAT)) {
+					scalar(tag, text);
+				} else {
+					scalar(Tag.FLOAT, TAGGED, text);
+				}
+			}
+			afterValue();
+		}
+		return this;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (depth != 0 || pendingName != null) {
+			throw new IOException("Incomplete document");
+		}
+		out.close();
+	}
+}
@@ -0,0 +1,40 @@
+package org.javautil.gsonutils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * The entry points into the YAML conversions.
+ *
+ * {@link GsonUtils} only refers to the YAML classes through here with JSON
+ * types in the signatures, so neither they nor SnakeYAML are loaded or
+ * verified until YAML is first used.
+ *
+ * @author jjs
+ *
+ */
+final class YamlSupport {
+	private YamlSupport() {
+	}
+
+	/**
+	 * @param out receives the yaml
+	 * @return a writer emitting block style yaml
+	 */
+	static JsonWriter newYamlWriter(Writer out) {
+		return new YamlJsonWriter(out);
+	}
+
+	/**
+	 * @param yaml the yaml to be converted, not closed
+	 * @param gson the mapper whose adapters write constructed scalars
+	 * @param out  receives the json, not flushed
+	 */
+	static void yamlToJson(Reader yaml, Gson gson, JsonWriter out) throws IOException {
+		new YamlJsonConverter(yaml, gson).convert(out);
+	}
+}
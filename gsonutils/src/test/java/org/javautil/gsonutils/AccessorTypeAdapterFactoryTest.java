@@ -0,0 +1,192 @@
+package org.javautil.gsonutils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.InstanceCreator;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.internal.Excluder;
+import com.google.gson.internal.bind.ReflectiveTypeAdapterFactory;
+
+public class AccessorTypeAdapterFactoryTest {
+
+	static class Base {
+		long id;
+		transient String secret = "secret";
+	}
+
+	static class Item<T> extends Base {
+		@SerializedName(value = "item_name", alternate = { "name", "title" })
+		String name;
+		int count;
+		boolean active;
+		double ratio;
+		Integer boxed;
+		T payload;
+		Object any;
+		BigDecimal amount;
+		Instant at;
+		List<String> tags;
+		Map<String, Item<String>> children;
+	}
+
+	static class Duplicate extends Base {
+		@SerializedName("id")
+		String other;
+	}
+
+	static class Secret {
+		String value;
+	}
+
+	static class Holder {
+		String name = "default";
+		Secret secret;
+		int count;
+	}
+
+	static class Named {
+		final String name;
+		int count;
+
+		Named(String name) {
+			this.name = name;
+		}
+	}
+
+	static Item<String> item() {
+		var item = new Item<String>();
+		item.id = 42;
+		item.name = "widget";
+		item.count = 7;
+		item.active = true;
+		item.ratio = 0.25;
+		item.payload = "payload";
+		item.any = new BigDecimal("1.50");
+		item.amount = new BigDecimal("10.00");
+		item.at = Instant.ofEpochSecond(1_650_000_000L, 5);
+		item.tags = List.of("a", "b");
+		var child = new Item<String>();
+		child.name = "child";
+		item.children = Map.of("c", child);
+		return item;
+	}
+
+	static Gson accessorMapper(MapperOption... options) {
+		return new MapperRegistry().registerTypeAdapterFactory(new AccessorTypeAdapterFactory()).get(options);
+	}
+
+	@Test
+	public void testSameJson() {
+		var item = item();
+		assertFalse(accessorMapper().getAdapter(Item.class) instanceof ReflectiveTypeAdapterFactory.Adapter);
+		assertEquals(accessorMapper().toJson(item), GsonUtils.mapper().toJson(item));
+		assertEquals(accessorMapper(MapperOption.NULLS, MapperOption.PRETTY).toJson(item),
+				GsonUtils.nullPrettyMapper().toJson(item));
+		assertTrue(accessorMapper().toJson(item).contains("\"item_name\":\"widget\""));
+		assertTrue(accessorMapper().toJson(item).contains("\"any\":\"1.50\""));
+		assertEquals(accessorMapper().toJson(new Item<String>()),
+				"{\"count\":0,\"active\":false,\"ratio\":0.0,\"id\":0}");
+	}
+
+	@Test
+	public void testRoundTrip() {
+		var mapper = accessorMapper();
+		var json = mapper.toJson(item());
+		Item<?> read = mapper.fromJson(json, Item.class);
+		assertEquals(mapper.toJson(read), json);
+		assertEquals(read.secret, "secret");
+
+		read = mapper.fromJson("{\"title\":\"t\",\"count\":\"3\",\"active\":\"true\",\"id\":null,\"boxed\":null,"
+				+ "\"unknown\":[1,{}],\"secret\":\"x\"}", Item.class);
+		assertEquals(read.name, "t");
+		assertEquals(read.count, 3);
+		assertTrue(read.active);
+		assertNull(read.boxed);
+		assertEquals(read.secret, "secret");
+		assertNull(mapper.fromJson("null", Item.class));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testDuplicateName() {
+		accessorMapper().toJson(new Duplicate());
+	}
+
+	@Test(expectedExceptions = JsonSyntaxException.class)
+	public void testMalformed() {
+		accessorMapper().fromJson("{\"count\":\"many\"}", Item.class);
+	}
+
+	@Test
+	public void testRegisteredAdapterWins() {
+		var registry = new MapperRegistry().registerTypeAdapter(MapperRegistryTest.Money.class,
+				new MapperRegistryTest.MoneyAdapter());
+		registry.registerTypeAdapterFactory(new AccessorTypeAdapterFactory());
+		assertEquals(registry.get().toJson(new MapperRegistryTest.Money(1234)), "\"12.34\"");
+	}
+
+	@Test
+	public void testExcludedClass() {
+		var strategy = new ExclusionStrategy() {
+			@Override
+			public boolean shouldSkipField(FieldAttributes f) {
+				return false;
+			}
+
+			@Override
+			public boolean shouldSkipClass(Class<?> type) {
+				return type == Secret.class;
+			}
+		};
+		var holder = new Holder();
+		holder.secret = new Secret();
+		holder.secret.value = "x";
+		var expected = new GsonBuilder().setExclusionStrategies(strategy).create().toJson(holder);
+		assertEquals(expected, "{\"name\":\"default\",\"count\":0}");
+		var mapper = new GsonBuilder().setExclusionStrategies(strategy)
+				.registerTypeAdapterFactory(
+						new AccessorTypeAdapterFactory(Excluder.DEFAULT.withExclusionStrategy(strategy, true, true),
+								Map.of()))
+				.create();
+		assertFalse(mapper.getAdapter(Holder.class) instanceof ReflectiveTypeAdapterFactory.Adapter);
+		assertEquals(mapper.toJson(holder), expected);
+		assertNull(mapper.fromJson("{\"secret\":{\"value\":\"y\"}}", Holder.class).secret);
+	}
+
+	@Test
+	public void testInstanceCreator() {
+		var creators = Map.<Type, InstanceCreator<?>>of(Holder.class, type -> {
+			var holder = new Holder();
+			holder.name = "created";
+			return holder;
+		}, Named.class, type -> new Named("created"));
+		var registry = new MapperRegistry();
+		creators.forEach(registry::registerTypeAdapter);
+		registry.registerTypeAdapterFactory(new AccessorTypeAdapterFactory(creators));
+		var mapper = registry.get();
+		assertFalse(mapper.getAdapter(Holder.class) instanceof ReflectiveTypeAdapterFactory.Adapter);
+		var read = mapper.fromJson("{\"count\":2}", Holder.class);
+		assertEquals(read.name, "created");
+		assertEquals(read.count, 2);
+		assertEquals(accessorMapper().fromJson("{\"count\":2}", Holder.class).name, "default");
+		// without a no-argument constructor the creator is needed
+		assertFalse(mapper.getAdapter(Named.class) instanceof ReflectiveTypeAdapterFactory.Adapter);
+		assertEquals(mapper.fromJson("{\"count\":3}", Named.class).name, "created");
+		assertEquals(mapper.fromJson("{\"count\":3}", Named.class).count, 3);
+	}
+}
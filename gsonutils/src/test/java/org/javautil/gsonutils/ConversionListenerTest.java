@@ -0,0 +1,60 @@
+package org.javautil.gsonutils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import javax.management.MBeanServerFactory;
+
+import org.javautil.gsonutils.JsonLinesTest.Event;
+import org.testng.annotations.Test;
+
+import com.google.gson.JsonSyntaxException;
+
+public class ConversionListenerTest {
+
+	@Test
+	public void testJmx() throws Exception {
+		var server = MBeanServerFactory.newMBeanServer();
+		var listener = new JmxConversionListener(server);
+		GsonUtils.setConversionListener(listener);
+		try {
+			var json = GsonUtils.toJson(new Event(1));
+			GsonUtils.toJson(new Event(2));
+			GsonUtils.toBeanFromJson(json, Event.class);
+			GsonUtils.toBeanFromJson(json.getBytes(StandardCharsets.UTF_8), Event.class);
+			GsonUtils.yamlToJson("a: 1");
+			GsonUtils.toMapFromBean(Map.of("a", 1));
+			GsonUtils.toJson(Map.of("s", "caf\u00e9"), new ByteArrayOutputStream());
+			GsonUtils.toJson(Map.of("s", "caf\u00e9"), new StringBuilder());
+			GsonUtils.toCbor(new Event(1), new ByteArrayOutputStream());
+			assertThrows(JsonSyntaxException.class, () -> GsonUtils.toBeanFromJson("{\"id\":[}", Event.class));
+		} finally {
+			GsonUtils.setConversionListener(null);
+		}
+		var toJson = listener.getStats("toJson", Event.class);
+		assertEquals(toJson.getCount(), 2);
+		assertEquals(toJson.getSizeOut(), 2 * GsonUtils.toJson(new Event(1)).length());
+		assertEquals(server.getAttribute(JmxConversionListener.objectName("toJson", Event.class), "Count"), 2L);
+		var bytes = GsonUtils.toJsonBytes(Map.of("s", "caf\u00e9")).length;
+		var streamed = listener.getStats("toJson", Map.of("s", "").getClass());
+		assertEquals(streamed.getCount(), 2);
+		assertEquals(streamed.getSizeOut(), 2 * bytes);
+		assertEquals(listener.getStats("toCbor", Event.class).getSizeOut(), GsonUtils.toCbor(new Event(1)).length);
+		var toBean = listener.getStats("toBeanFromJson", Event.class);
+		assertEquals(toBean.getCount(), 2);
+		assertEquals(toBean.getErrors(), 1);
+		assertEquals(toBean.getSizeIn(), 2 * GsonUtils.toJson(new Event(1)).length());
+		assertTrue(toBean.getP99Micros() >= toBean.getP50Micros());
+		assertTrue(toBean.getMaxMicros() > 0);
+		assertEquals(listener.getStats("yamlToJson", null).getSizeOut(), "{\"a\":1}".length());
+		assertEquals(server.getAttribute(JmxConversionListener.objectName("yamlToJson", null), "Count"), 1L);
+		listener.unregister();
+		assertEquals(server.queryNames(null, null).stream()
+				.filter(name -> name.getDomain().equals(JmxConversionListener.DOMAIN)).count(), 0);
+	}
+}
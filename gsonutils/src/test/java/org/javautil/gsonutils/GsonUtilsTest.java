@@ -1,9 +1,22 @@
 package org.javautil.gsonutils;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
@@ -14,15 +27,26 @@ import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.annotations.Test;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.DuplicateKeyException;
 
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 
 public class GsonUtilsTest {
 	
@@ -49,6 +73,16 @@ public class GsonUtilsTest {
 		private LocalTime dt;
 	}
 	
+	public class NestedClass {
+		String name;
+		int count;
+		Boolean flag;
+		BigDecimal amount;
+		OffsetDateTime dt;
+		List<Integer> values;
+		NestedClass child;
+	}
+
 	public class OffsetDateTimeClass {
 		private OffsetDateTime dt;
 	}
@@ -78,6 +112,53 @@ public class GsonUtilsTest {
 		assert bean.bd.equals(bean2.bd);
 	}
 	
+	@Test
+	public void testBigDecimalNullAndNumeric() {
+		var bean = new BigDecimalClass();
+		String json = GsonUtils.toJsonWithNulls(bean);
+		assertEquals(json,"{\"bd\":null}");
+		assert GsonUtils.toBeanFromJson(json,BigDecimalClass.class).bd == null;
+		var bean2  = GsonUtils.toBeanFromJson("{\"bd\":3.140}",BigDecimalClass.class);
+		assertEquals(bean2.bd,new BigDecimal("3.140"));
+	}
+
+	@Test
+	public void testBigDecimalNumeric() {
+		var bean = new BigDecimalClass();
+		bean.bd = new BigDecimal("3.140");
+		String json = GsonUtils.toJson(bean, MapperOption.NUMERIC_DECIMALS);
+		assertEquals(json, "{\"bd\":3.140}");
+		assertEquals(GsonUtils.toJson(List.of(bean), MapperOption.NUMERIC_DECIMALS, MapperOption.COMPACT),
+				"[{\"bd\":3.140}]");
+		assertEquals(GsonUtils.toBeanFromJson(json, BigDecimalClass.class).bd, bean.bd);
+		var numeric = GsonUtils.registry.get(MapperOption.NUMERIC_DECIMALS);
+		var tree = numeric.toJsonTree(new BigDecimal("1.50")).getAsJsonPrimitive();
+		assertEquals(tree.isNumber(), true);
+		assertEquals(tree.getAsBigDecimal(), new BigDecimal("1.50"));
+		assertEquals(numeric.toJson(tree), "1.50");
+		assertEquals(numeric.fromJson(GsonUtils.toJson(bean), BigDecimalClass.class).bd, bean.bd);
+		var plain = GsonUtils.registry.get(MapperOption.PLAIN_DECIMALS);
+		var plainNumeric = GsonUtils.registry.get(MapperOption.PLAIN_DECIMALS, MapperOption.NUMERIC_DECIMALS);
+		for (var text : List.of("0.00000010", "1E+3", "1E-1000", "-12345678901234567890.123456789", "0")) {
+			bean.bd = new BigDecimal(text);
+			assertEquals(GsonUtils.toJson(bean), "{\"bd\":\"" + bean.bd + "\"}");
+			assertEquals(numeric.toJson(bean), "{\"bd\":" + bean.bd + "}");
+			var plainText = bean.bd.scale() >= 0 ? bean.bd.toPlainString() : text;
+			assertEquals(plain.toJson(bean), "{\"bd\":\"" + plainText + "\"}");
+			assertEquals(plainNumeric.toJson(bean), "{\"bd\":" + plainText + "}");
+			for (var mapper : List.of(GsonUtils.mapper(), numeric, plain, plainNumeric)) {
+				assertEquals(mapper.fromJson(mapper.toJson(bean), BigDecimalClass.class).bd, bean.bd);
+			}
+		}
+		bean.bd = new BigDecimal("0.00000010");
+		assertEquals(GsonUtils.toJson(bean), "{\"bd\":\"1.0E-7\"}");
+		assertEquals(plain.toJson(bean), "{\"bd\":\"0.00000010\"}");
+		assertThrows(JsonSyntaxException.class,
+				() -> GsonUtils.toBeanFromJson("{\"bd\":\"abc\"}", BigDecimalClass.class));
+		assertThrows(JsonSyntaxException.class,
+				() -> GsonUtils.toBeanFromJson("{\"bd\":true}", BigDecimalClass.class));
+	}
+
 	@Test
 	public void testCompact() {
 		ArrayList<HashMap<String,String>> animalList = new ArrayList<>();
@@ -95,6 +176,25 @@ public class GsonUtilsTest {
 		assertEquals(json,expected);
 	}
 
+	@Test
+	public void testCompactPreservesStrings() {
+		ArrayList<Object> list = new ArrayList<>();
+		HashMap<String,String> map = new HashMap<>();
+		map.put("text","a},b");
+		list.add(map);
+		list.add("},");
+		list.add(map);
+		list.add(new ArrayList<>(List.of(map,map)));
+		String json = GsonUtils.toJsonCompact(list);
+		String expected = "[{\"text\":\"a},b\"},\n"
+				+ "\"},\",{\"text\":\"a},b\"},\n"
+				+ "[{\"text\":\"a},b\"},\n"
+				+ "{\"text\":\"a},b\"}]]";
+		assertEquals(json,expected);
+		assertEquals(GsonUtils.toJsonCompact(map),"{\"text\":\"a},b\"}");
+		assertEquals(GsonUtils.toJsonCompact(null),"null");
+	}
+
 	@Test
 	public void testEmitNull() {
 		String json = GsonUtils.toPrettyJsonWithNulls(new OffsetDateTimeClass());
@@ -164,6 +264,36 @@ public class GsonUtilsTest {
 		assertEquals(GsonUtils.toPrettyJson(bean),expectedPretty);
 	}
 	
+	@Test
+	public void testJsonToPrettyJsonMatchesTree() {
+		String json = "{\"a\":[1,2.50,1e400,{\"b\":null,\"c\":[]}],\"d\":{},\"e\":\"x<&>y\",\"f\":true,\"g\":null}";
+		String expected = GsonUtils.prettyMapper().toJson(JsonParser.parseString(json));
+		assertEquals(GsonUtils.jsonToPrettyJson(json),expected);
+		assertEquals(GsonUtils.jsonToPrettyJson(""),"null");
+	}
+
+	@Test
+	public void testJsonToPrettyJsonPath() throws IOException {
+		Path in = Files.createTempFile("gsonutils", ".json");
+		Path out = Files.createTempFile("gsonutils", ".json");
+		try {
+			Files.writeString(in, "{\"dt\":\"1988-04-08T08:20:45+07:00\"}");
+			GsonUtils.jsonToPrettyJson(in, out);
+			assertEquals(Files.readString(out),"""
+            {
+              "dt": "1988-04-08T08:20:45+07:00"
+            }""");
+		} finally {
+			Files.delete(in);
+			Files.delete(out);
+		}
+	}
+
+	@Test (expectedExceptions = com.google.gson.JsonSyntaxException.class)
+	public void testJsonToPrettyJsonTrailing() {
+		GsonUtils.jsonToPrettyJson("{} {}");
+	}
+
 	@Test
 	public void testToPrettyJson() {
 	var bean = new OffsetDateTimeClass();
@@ -205,6 +335,71 @@ public class GsonUtilsTest {
 		var bean = new OffsetDateTimeClass();
 		assertEquals(0,GsonUtils.toMapFromBean(bean).size());
 	}
+	@Test
+	public void testToMapFromBeanMatchesJson() {
+		var bean = new NestedClass();
+		bean.name = "outer";
+		bean.count = 3;
+		bean.amount = new BigDecimal("12.50");
+		bean.dt = OffsetDateTime.parse("1988-04-08T08:20:45+07:00");
+		bean.values = new ArrayList<>(List.of(1, 2, 3));
+		bean.child = new NestedClass();
+		bean.child.name = "inner";
+		bean.child.flag = true;
+		assertEquals(GsonUtils.toMapFromBean(bean),GsonUtils.toMapFromJson(GsonUtils.toJson(bean)));
+		LinkedHashMap<String,Object> withNulls = GsonUtils.toMapFromBeanWithNulls(bean);
+		assertEquals(withNulls,GsonUtils.toMapFromJson(GsonUtils.toJsonWithNulls(bean)));
+		assertEquals(new ArrayList<>(withNulls.keySet()),
+				List.of("name","count","flag","amount","dt","values","child"));
+		assertEquals(withNulls.get("count"),3.0);
+		assertEquals(withNulls.get("child").getClass(),
+				GsonUtils.toMapFromJson(GsonUtils.toJson(bean)).get("child").getClass());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testToMapInterned() throws IOException {
+		var json = "{\"rows\":[{\"code\":\"A\",\"n\":1,\"x\":null},{\"code\":\"A\",\"n\":2.5,\"x\":NaN}],"
+				+ "\"name\":\"a longer value\"}";
+		var interner = new StringInterner(64, 1);
+		var map = GsonUtils.toMapFromJson(json, interner);
+		assertEquals(map.toString(), GsonUtils.toMapFromJson(json).toString());
+		assertEquals(map.get("rows").getClass(), GsonUtils.toMapFromJson(json).get("rows").getClass());
+		var rows = (List<Map<String, Object>>) map.get("rows");
+		var first = rows.get(0).keySet().toArray();
+		var second = rows.get(1).keySet().toArray();
+		for (int i = 0; i < first.length; i++) {
+			assert (first[i] == second[i]);
+		}
+		assert (rows.get(0).get("code") == rows.get(1).get("code"));
+		assert (GsonUtils.toMapFromJson(new StringReader(json), interner).keySet().iterator().next() == map
+				.keySet().iterator().next());
+		assertEquals(GsonUtils.toMapFromJson("", interner), null);
+		assertThrows(JsonSyntaxException.class, () -> GsonUtils.toMapFromJson("{} []", new StringInterner()));
+		assertThrows(JsonSyntaxException.class, () -> GsonUtils.toMapFromJson("[]", new StringInterner()));
+		var duplicate = "{\"a\":1,\"b\":{\"c\":1,\"c\":2},\"a\":2}";
+		assertThrows(JsonSyntaxException.class, () -> GsonUtils.toMapFromJson(duplicate));
+		assertThrows(JsonSyntaxException.class, () -> GsonUtils.toMapFromJson(duplicate, new StringInterner()));
+		var nested = "{\"a\":null,\"b\":{\"c\":1,\"c\":2},\"a\":2}";
+		assertEquals(GsonUtils.toMapFromJson(nested, new StringInterner()), GsonUtils.toMapFromJson(nested));
+
+		var bean = new NestedClass();
+		bean.name = "outer";
+		bean.child = new NestedClass();
+		bean.child.name = "inner";
+		assertEquals(GsonUtils.toMapFromBean(bean, interner), GsonUtils.toMapFromBean(bean));
+		assert (GsonUtils.toMapFromBean(bean, interner).keySet().iterator().next() == GsonUtils
+				.toMapFromBean(bean, interner).keySet().iterator().next());
+
+		Path path = Files.createTempFile("gsonutils", ".json");
+		try {
+			Files.writeString(path, json);
+			assertEquals(GsonUtils.toMapFromJson(path, interner).toString(), map.toString());
+		} finally {
+			Files.delete(path);
+		}
+	}
+
 	@Test
 	public void testToMapFromBeanWithNulls() {
 		var bean = new OffsetDateTimeClass();
@@ -286,6 +481,330 @@ public class GsonUtilsTest {
 		assert bean.dt.equals(bean2.dt);
 	}
 	
+	@Test
+	public void testStreams() {
+		var bean = new OffsetDateTimeClass();
+		bean.dt = OffsetDateTime.parse("1988-04-08T08:20:45+07:00");
+		var bytes = new ByteArrayOutputStream();
+		GsonUtils.toJson(bean, bytes);
+		assertEquals(bytes.toString(StandardCharsets.UTF_8),GsonUtils.toJson(bean));
+		var bean2 = GsonUtils.toBeanFromJson(new ByteArrayInputStream(bytes.toByteArray()),OffsetDateTimeClass.class);
+		assertEquals(bean2.dt,bean.dt);
+		var sb = new StringBuilder();
+		GsonUtils.toPrettyJsonWithNulls(new OffsetDateTimeClass(), sb);
+		assertEquals(sb.toString(),GsonUtils.toPrettyJsonWithNulls(new OffsetDateTimeClass()));
+		sb.setLength(0);
+		GsonUtils.toJsonCompact(List.of(Map.of("a","}, "),Map.of("b",2)), sb);
+		assertEquals(sb.toString(),"[{\"a\":\"}, \"},\n{\"b\":2}]");
+		assertEquals(GsonUtils.toMapFromJson(new StringReader("{\"a\":1}")).get("a"),1.0);
+		sb.setLength(0);
+		GsonUtils.yamlToJson(new StringReader("snake: \"Tom & Jerry\""), sb);
+		assertEquals(sb.toString(),"{\"snake\":\"Tom & Jerry\"}");
+		bytes.reset();
+		GsonUtils.toHtmlJson("Tom & Jerry", bytes);
+		assertEquals(bytes.toString(StandardCharsets.UTF_8),"\"Tom \\u0026 Jerry\"");
+		bytes.reset();
+		GsonUtils.toJson(bean, new PrintStream(bytes, false, StandardCharsets.UTF_8));
+		assertEquals(bytes.toString(StandardCharsets.UTF_8),GsonUtils.toJson(bean));
+	}
+
+	@Test
+	public void testByteBuffer() {
+		var text = "caf\u00e9 \u20ac \ud83d\udc0d \ud83d";
+		var expected = GsonUtils.toJson(Map.of("s", text)).getBytes(StandardCharsets.UTF_8);
+		var buffer = ByteBuffer.allocate(64);
+		buffer.put((byte) 'x');
+		assertEquals(GsonUtils.toJson(Map.of("s", text), buffer), expected.length);
+		assertEquals(Arrays.copyOfRange(buffer.array(), 1, buffer.position()), expected);
+		var small = ByteBuffer.allocate(4);
+		assertThrows(BufferOverflowException.class, () -> GsonUtils.toJson(Map.of("s", text), small));
+		assertEquals(small.position(), 0);
+		var large = new ArrayList<String>();
+		for (int i = 0; i < 100_000; i++) {
+			large.add("element " + i);
+		}
+		assertEquals(GsonUtils.toJson(large), new GsonBuilder().create().toJson(large));
+		assertEquals(GsonUtils.toJson(List.of(1)), "[1]");
+	}
+
+	@Test
+	public void testBytes() {
+		var text = "caf\u00e9 \u20ac \ud83d\udc0d <b>";
+		var bean = new OffsetDateTimeClass();
+		bean.dt = OffsetDateTime.parse("1988-04-08T08:20:45+07:00");
+		assertEquals(GsonUtils.toJsonBytes(text), GsonUtils.toJson(text).getBytes(StandardCharsets.UTF_8));
+		assertEquals(GsonUtils.toHtmlJsonBytes(text), GsonUtils.toHtmlJson(text).getBytes(StandardCharsets.UTF_8));
+		assertEquals(GsonUtils.toBeanFromJson(GsonUtils.toJsonBytes(text), String.class), text);
+		assertEquals(GsonUtils.toBeanFromJson(GsonUtils.toJsonBytes(bean), OffsetDateTimeClass.class).dt, bean.dt);
+		var large = new ArrayList<String>();
+		for (int i = 0; i < 20_000; i++) {
+			large.add(text + i);
+		}
+		var direct = ByteBuffer.allocateDirect(1024 * 1024);
+		var length = GsonUtils.toHtmlJson(large, direct);
+		assertEquals(length, GsonUtils.toHtmlJsonBytes(large).length);
+		direct.flip();
+		assertEquals(GsonUtils.toBeanFromJson(direct, ArrayList.class), large);
+		assertEquals(direct.remaining(), 0);
+		assertEquals(GsonUtils.toBeanFromJson(new byte[] { '"', (byte) 0xc3, '"' }, String.class), "\ufffd");
+	}
+
+	@Test
+	public void testMappedFile() throws IOException {
+		var text = "caf\u00e9 \u20ac \ud83d\udc0d";
+		var map = new LinkedHashMap<String, Object>();
+		for (int i = 0; i < 100; i++) {
+			map.put("k" + i, text + i);
+		}
+		Path path = Files.createTempFile("gsonutils", ".json");
+		try {
+			Files.writeString(path, GsonUtils.toJson(map));
+			assertEquals(GsonUtils.toMapFromJson(path), map);
+			for (int window = 4; window < 12; window++) {
+				try (var reader = new MappedFileReader(path, window)) {
+					assertEquals(GsonUtils.toMapFromJson(reader), map);
+				}
+			}
+			var bean = new OffsetDateTimeClass();
+			bean.dt = OffsetDateTime.parse("1988-04-08T08:20:45+07:00");
+			Files.writeString(path, GsonUtils.toJson(bean));
+			assertEquals(GsonUtils.toBeanFromJson(path, OffsetDateTimeClass.class).dt, bean.dt);
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testEpochMapper() {
+		var epoch = GsonUtils.epochMapper();
+		var instant = new InstantClass();
+		instant.instant = Instant.ofEpochSecond(1_650_017_730L, 123_456_789);
+		assertEquals(epoch.toJson(instant), "{\"instant\":1650017730.123456789}");
+		var tree = epoch.toJsonTree(instant).getAsJsonObject().getAsJsonPrimitive("instant");
+		assertEquals(tree.isNumber(), true);
+		assertEquals(tree.getAsBigDecimal(), new BigDecimal("1650017730.123456789"));
+		assertEquals(epoch.fromJson(tree, Instant.class), instant.instant);
+		assertEquals(epoch.fromJson(epoch.toJson(instant), InstantClass.class).instant, instant.instant);
+		assertEquals(epoch.fromJson(GsonUtils.toJson(instant), InstantClass.class).instant, instant.instant);
+		for (var text : List.of("0", "-0.5", "-1.75", "1.1", "-62135596800", "1650017730.000000001", "1.5e3",
+				"1.1000000000", "31556889864403199")) {
+			var decimal = new BigDecimal(text);
+			var seconds = decimal.setScale(0, java.math.RoundingMode.FLOOR);
+			var expected = Instant.ofEpochSecond(seconds.longValue(),
+					decimal.subtract(seconds).movePointRight(9).longValue());
+			instant.instant = epoch.fromJson("{\"instant\":" + text + "}", InstantClass.class).instant;
+			assertEquals(instant.instant, expected, text);
+			assertEquals(epoch.fromJson(epoch.toJson(instant), InstantClass.class).instant, expected, text);
+		}
+		assertThrows(JsonSyntaxException.class,
+				() -> epoch.fromJson("{\"instant\":1.0000000001}", InstantClass.class));
+		assertThrows(JsonSyntaxException.class,
+				() -> epoch.fromJson("{\"instant\":99999999999999999999}", InstantClass.class));
+
+		var timestamp = new TimestampClass();
+		timestamp.timestamp = Timestamp.from(Instant.ofEpochSecond(-1, 250_000_000));
+		assertEquals(epoch.toJson(timestamp), "{\"timestamp\":-0.75}");
+		assertEquals(epoch.fromJson(epoch.toJson(timestamp), TimestampClass.class).timestamp, timestamp.timestamp);
+		assertEquals(epoch.fromJson(GsonUtils.toJson(timestamp), TimestampClass.class).timestamp,
+				timestamp.timestamp);
+
+		var local = new LocalDateTimeClass();
+		local.dt = LocalDateTime.of(1970, 1, 2, 0, 0, 1, 500_000_000);
+		assertEquals(epoch.toJson(local), "{\"dt\":86401.5}");
+		assertEquals(epoch.fromJson(epoch.toJson(local), LocalDateTimeClass.class).dt, local.dt);
+		assertEquals(epoch.fromJson(GsonUtils.toJson(local), LocalDateTimeClass.class).dt, local.dt);
+		assertEquals(GsonUtils.toJson(local, MapperOption.EPOCH_TIMES, MapperOption.NULLS), "{\"dt\":86401.5}");
+	}
+
+	private static String hex(byte[] bytes) {
+		var text = new StringBuilder();
+		for (var b : bytes) {
+			text.append(String.format("%02x", b));
+		}
+		return text.toString();
+	}
+
+	private static byte[] unhex(String text) {
+		var bytes = new byte[text.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(text.substring(i * 2, i * 2 + 2), 16);
+		}
+		return bytes;
+	}
+
+	private <T> void assertCborRoundTrip(Object bean, Class<T> clazz) {
+		var cbor = GsonUtils.toCbor(bean);
+		assertEquals(GsonUtils.toJson(GsonUtils.toBeanFromCbor(cbor, clazz)), GsonUtils.toJson(bean));
+		var out = new ByteArrayOutputStream();
+		GsonUtils.toCbor(bean, out);
+		assertEquals(out.toByteArray(), cbor);
+		assertEquals(GsonUtils.toJson(GsonUtils.toBeanFromCbor(new ByteArrayInputStream(cbor), clazz)),
+				GsonUtils.toJson(bean));
+	}
+
+	@Test
+	public void testCbor() {
+		var nested = new NestedClass();
+		nested.name = "naïve ✓";
+		nested.count = -1000;
+		nested.flag = true;
+		nested.amount = new BigDecimal("-12345678901234567890.123456789");
+		nested.dt = OffsetDateTime.parse("2022-04-15T10:15:30.123+02:00");
+		nested.values = List.of(0, 23, 24, 255, 256, 65536, Integer.MIN_VALUE);
+		nested.child = new NestedClass();
+		nested.child.name = "child";
+		assertCborRoundTrip(nested, NestedClass.class);
+
+		var bd = new BigDecimalClass();
+		bd.bd = new BigDecimal("3.140");
+		assertCborRoundTrip(bd, BigDecimalClass.class);
+		var instant = new InstantClass();
+		instant.instant = Instant.parse("2022-04-15T10:15:30.123456789Z");
+		assertCborRoundTrip(instant, InstantClass.class);
+		var localDate = new LocalDateClass();
+		localDate.dt = LocalDate.of(2022, 4, 15);
+		assertCborRoundTrip(localDate, LocalDateClass.class);
+		var localDateTime = new LocalDateTimeClass();
+		localDateTime.dt = LocalDateTime.of(2022, 4, 15, 10, 15, 30, 1);
+		assertCborRoundTrip(localDateTime, LocalDateTimeClass.class);
+		var localTime = new LocalTimeClass();
+		localTime.dt = LocalTime.of(23, 59);
+		assertCborRoundTrip(localTime, LocalTimeClass.class);
+		var offset = new OffsetDateTimeClass();
+		offset.dt = OffsetDateTime.parse("2022-04-15T10:15:30-05:00");
+		assertCborRoundTrip(offset, OffsetDateTimeClass.class);
+		var zoned = new ZonedDateTimeClass();
+		zoned.dt = ZonedDateTime.parse("2022-04-15T10:15:30+02:00[Europe/Paris]");
+		assertCborRoundTrip(zoned, ZonedDateTimeClass.class);
+		var timestamp = new TimestampClass();
+		timestamp.timestamp = Timestamp.valueOf("2022-04-15 10:15:30.5");
+		assertCborRoundTrip(timestamp, TimestampClass.class);
+		var file = new FileClass();
+		file.file = new File("/tmp/x.json");
+		assertCborRoundTrip(file, FileClass.class);
+
+		var map = new LinkedHashMap<String, Object>();
+		map.put("d", 1.5);
+		map.put("list", List.of(100000.0, 1.1, "x"));
+		map.put("nested", Map.of("n", -0.0));
+		assertEquals(GsonUtils.toBeanFromCbor(GsonUtils.toCbor(map), LinkedHashMap.class), map);
+		var keyed = new TypeToken<Map<Integer, List<Instant>>>() {
+		}.getType();
+		Map<Integer, List<Instant>> byKey = Map.of(7, List.of(Instant.EPOCH), -1, List.of());
+		var cbor = GsonUtils.toCbor(byKey);
+		assertEquals(GsonUtils.cborMapper().<Map<Integer, List<Instant>>>fromJson(
+				new CborReader(ByteBuffer.wrap(cbor)), keyed), byKey);
+		assertEquals(GsonUtils.toBeanFromCbor(GsonUtils.toCbor(null), Object.class), null);
+		assertEquals(GsonUtils.toBeanFromCbor(new byte[0], Object.class), null);
+	}
+
+	@Test
+	public void testCborEncoding() {
+		// RFC 8949 appendix A, containers are written with indefinite lengths
+		assertEquals(hex(GsonUtils.toCbor(0)), "00");
+		assertEquals(hex(GsonUtils.toCbor(1000)), "1903e8");
+		assertEquals(hex(GsonUtils.toCbor(-1000L)), "3903e7");
+		assertEquals(hex(GsonUtils.toCbor(1.5)), "f93e00");
+		assertEquals(hex(GsonUtils.toCbor(100000.0)), "fa47c35000");
+		assertEquals(hex(GsonUtils.toCbor(1.1)), "fb3ff199999999999a");
+		assertEquals(hex(GsonUtils.toCbor(-4.0)), "f9c400");
+		assertEquals(hex(GsonUtils.toCbor("IETF")), "6449455446");
+		assertEquals(hex(GsonUtils.toCbor("ü")), "62c3bc");
+		assertEquals(hex(GsonUtils.toCbor(true)), "f5");
+		assertEquals(hex(GsonUtils.toCbor(new BigInteger("18446744073709551616"))),
+				"c249010000000000000000");
+		assertEquals(hex(GsonUtils.toCbor(new BigInteger("-18446744073709551617"))),
+				"c349010000000000000000");
+		assertEquals(hex(GsonUtils.toCbor(List.of(1, 2))), "9f0102ff");
+		var bd = new BigDecimalClass();
+		bd.bd = new BigDecimal("273.15");
+		assertEquals(hex(GsonUtils.toCbor(bd)), "bf626264663237332e3135ff");
+
+		// definite lengths, chunked strings, byte strings and tags from other encoders
+		assertEquals(GsonUtils.toBeanFromCbor(unhex("a26161016162820203"), Map.class),
+				Map.of("a", 1.0, "b", List.of(2.0, 3.0)));
+		assertEquals(GsonUtils.toBeanFromCbor(unhex("7f657374726561646d696e67ff"), String.class), "streaming");
+		assertEquals(GsonUtils.toBeanFromCbor(unhex("4401020304"), String.class), "AQIDBA");
+		assertEquals(GsonUtils.toBeanFromCbor(unhex("c482211a00006ab3"), BigDecimal.class), new BigDecimal("273.15"));
+		assertEquals(GsonUtils.toBeanFromCbor(unhex("c249010000000000000000"), BigInteger.class),
+				new BigInteger("18446744073709551616"));
+		assertEquals(GsonUtils.toBeanFromCbor(unhex("1bffffffffffffffff"), BigInteger.class),
+				new BigInteger("18446744073709551615"));
+		assertEquals(GsonUtils.toBeanFromCbor(unhex("c074323031332d30332d32315432303a30343a30305a"), Instant.class),
+				Instant.parse("2013-03-21T20:04:00Z"));
+		assertEquals((double) GsonUtils.toBeanFromCbor(unhex("f97c00"), Double.class), Double.POSITIVE_INFINITY);
+		assertEquals((double) GsonUtils.toBeanFromCbor(unhex("f90001"), Double.class), 5.960464477539063e-8);
+		assertEquals(GsonUtils.toBeanFromCbor(unhex("a1016161"), Map.class), Map.of("1", "a"));
+
+		assertThrows(JsonSyntaxException.class, () -> GsonUtils.toBeanFromCbor(unhex("1903"), Integer.class));
+		assertThrows(JsonSyntaxException.class, () -> GsonUtils.toBeanFromCbor(unhex("6449455446"), Integer.class));
+		assertThrows(JsonSyntaxException.class, () -> GsonUtils.toBeanFromCbor(unhex("0101"), Integer.class));
+		assertThrows(JsonSyntaxException.class, () -> GsonUtils.toBeanFromCbor(unhex("7affffffff00"), String.class));
+		assertThrows(JsonSyntaxException.class, () -> GsonUtils.toBeanFromCbor(unhex("1c"), Integer.class));
+		assertThrows(JsonSyntaxException.class,
+				() -> GsonUtils.toBeanFromCbor(unhex("81".repeat(CborReader.MAX_DEPTH + 1) + "00"), Object.class));
+	}
+
+	@Test
+	public void testExtract() throws IOException {
+		var json = "{\"body\":{\"rows\":[1,2,3],\"header\":\"not this one\"},"
+				+ "\"header\":{\"eventTime\":\"2022-04-15T10:15:30+02:00\",\"ids\":[\"a\",\"b\"],\"a/b\":{\"m~n\":7}}}";
+		assertEquals(GsonUtils.extractFromJson(json, "/header/eventTime", OffsetDateTime.class),
+				OffsetDateTime.parse("2022-04-15T10:15:30+02:00"));
+		assertEquals(GsonUtils.extractFromJson(json, "/header/ids/1", String.class), "b");
+		assertEquals(GsonUtils.extractFromJson(json, "/header/a~1b/m~0n", int.class), Integer.valueOf(7));
+		assertEquals(GsonUtils.extractFromJson(json, "/body/rows", int[].class), new int[] { 1, 2, 3 });
+		assertEquals(GsonUtils.extractFromJson(json, "", Map.class).size(), 2);
+		assertEquals(GsonUtils.extractFromJson(json, "/header/missing", String.class), null);
+		assertEquals(GsonUtils.extractFromJson(json, "/header/ids/2", String.class), null);
+		assertEquals(GsonUtils.extractFromJson(json, "/body/rows/-", Integer.class), null);
+
+		// a pointer inside another is read from the same value
+		var pointers = new LinkedHashMap<String, Class<?>>();
+		pointers.put("/header/ids/0", String.class);
+		pointers.put("/header", Map.class);
+		pointers.put("/nowhere", String.class);
+		var values = GsonUtils.extractFromJson(json, pointers);
+		assertEquals(values.keySet(), List.of("/header/ids/0", "/header"));
+		assertEquals(values.get("/header/ids/0"), "a");
+		assertEquals(((Map<?, ?>) values.get("/header")).get("ids"), List.of("a", "b"));
+
+		// a subtree whose pointers are all found is read to its end before its siblings
+		var siblings = new LinkedHashMap<String, Class<?>>();
+		siblings.put("/a/x", Integer.class);
+		siblings.put("/b", Integer.class);
+		assertEquals(GsonUtils.extractFromJson("{\"a\":{\"x\":1,\"y\":2},\"b\":3}", siblings),
+				Map.of("/a/x", 1, "/b", 3));
+		assertEquals(GsonUtils.extractFromJson("{\"a\":{\"x\":1,\"b\":99},\"b\":3}", siblings),
+				Map.of("/a/x", 1, "/b", 3));
+		siblings.clear();
+		siblings.put("/a/0", Integer.class);
+		siblings.put("/b", Integer.class);
+		assertEquals(GsonUtils.extractFromJson("{\"a\":[1,[2],{\"b\":3}],\"b\":3}", siblings),
+				Map.of("/a/0", 1, "/b", 3));
+
+		// an index is looked up, not allocated
+		assertEquals(GsonUtils.extractFromJson("{\"a\":[1,2]}", Map.of("/a/999999999", Object.class)), Map.of());
+		assertEquals(GsonUtils.extractFromJson("{\"a\":[1,2]}", "/a/999999999", Integer.class), null);
+
+		// reading stops once every pointer is found, the malformed rest is never read
+		var truncated = "{\"header\":{\"eventTime\":\"2022-04-15T10:15:30Z\"},\"body\":[1,2,";
+		assertEquals(GsonUtils.extractFromJson(new StringReader(truncated), "/header/eventTime", Instant.class),
+				Instant.parse("2022-04-15T10:15:30Z"));
+		assertThrows(JsonSyntaxException.class, () -> GsonUtils.extractFromJson(truncated, "/body/3", Integer.class));
+		assertThrows(IllegalArgumentException.class, () -> GsonUtils.extractFromJson(json, "header", String.class));
+		assertThrows(IllegalArgumentException.class, () -> GsonUtils.extractFromJson(json, "/a~2", String.class));
+		assertEquals(GsonUtils.extractFromJson("", "/a", String.class), null);
+
+		var file = Files.createTempFile("extract", ".json");
+		try {
+			Files.writeString(file, json);
+			assertEquals(GsonUtils.extractFromJson(file, "/header/ids/0", String.class), "a");
+		} finally {
+			Files.delete(file);
+		}
+	}
+
 	@Test
 	public void testTimestamp() {
 		TimestampClass clazz = new TimestampClass();
@@ -310,7 +829,7 @@ public class GsonUtilsTest {
 		String yaml = """
             garter:
                eyes: round
-            rattlesnake: 
+            rattlesnake:
               eyes: eliptical
             """;
 		String json = GsonUtils.yamlToJson(yaml);
@@ -334,6 +853,130 @@ public class GsonUtilsTest {
 		
 	}
 	
+	@Test
+	public void testYamlMatchesLoad() {
+		String yaml = """
+            name: "Tom & Jerry"
+            count: 0x1F
+            big: 123456789012345678901234567890
+            ratio: 1_000.5
+            flags: [yes, No, true, off]
+            nothing: ~
+            quoted: "123"
+            list:
+              - 1
+              - two
+              - null
+              - {a: 1, b: [x, y]}
+            empty: {}
+            3: integer key
+            """;
+		Object loaded = new Yaml().load(yaml);
+		String expected = GsonUtils.mapper().toJson(loaded);
+		assertEquals(GsonUtils.yamlToJson(yaml),expected);
+		assertEquals(GsonUtils.yamlToJson(""),"null");
+		assertEquals(GsonUtils.yamlToJson("- a\n- b\n"),"[\"a\",\"b\"]");
+	}
+
+	@Test
+	public void testYamlAliases() {
+		String yaml = """
+            base: &base
+              eyes: round
+              tags: &tags [a, b]
+            copy: *base
+            more: *tags
+            scalar: &s hello
+            again: *s
+            """;
+		Object loaded = new Yaml().load(yaml);
+		String expected = GsonUtils.mapper().toJson(loaded);
+		assertEquals(GsonUtils.yamlToJson(yaml),expected);
+	}
+
+	@Test
+	public void testYamlMerge() {
+		String yaml = """
+            b: &b {x: 1, y: 2}
+            d: {<<: *b, x: 3}
+            e: {y: 0, <<: [{x: 1}, {x: 2, z: 2}], x: 5}
+            f: {<<: [{a: 1, <<: {b: 2}}, {b: 3}], c: 4}
+            ? 2001-12-14t21:59:43.10-05:00
+            : timestamp key
+            """;
+		Object loaded = new Yaml().load(yaml);
+		String expected = GsonUtils.mapper().toJson(loaded);
+		assertEquals(GsonUtils.yamlToJson(yaml),expected);
+		var type = new TypeToken<Map<String, Map<String, Integer>>>() {}.getType();
+		Map<String, Map<String, Integer>> map = GsonUtils.mapper().fromJson(GsonUtils.yamlToJson("d: {<<: {x: 1, y: 2}, x: 3}"), type);
+		assertEquals(map.get("d"),Map.of("x",3,"y",2));
+		assertThrows(DuplicateKeyException.class, () -> GsonUtils.yamlToJson("f: {a: 1, a: 2}"));
+		assertThrows(DuplicateKeyException.class, () -> GsonUtils.yamlToJson("{1: one, \"1\": text}"));
+		assertThrows(DuplicateKeyException.class, () -> GsonUtils.yamlToJson("{a: 1, <<: {b: 2}, a: 3}"));
+		assertThrows(org.yaml.snakeyaml.error.YAMLException.class, () -> GsonUtils.yamlToJson("a: !foo bar"));
+		assertThrows(org.yaml.snakeyaml.error.YAMLException.class, () -> GsonUtils.yamlToJson("a: !foo {x: 1}"));
+		assertThrows(org.yaml.snakeyaml.error.YAMLException.class, () -> GsonUtils.yamlToJson("a: <<"));
+	}
+
+	@Test
+	public void testYamlStreams() throws IOException {
+		// entries are written as they are read, the broken end is only reached after
+		var yaml = "a: {b: [1, {c: d}], e: f}\ng: h\ni: [";
+		var json = new StringWriter();
+		var converter = new YamlJsonConverter(new StringReader(yaml), GsonUtils.mapper());
+		assertThrows(org.yaml.snakeyaml.error.YAMLException.class, () -> converter.convert(new JsonWriter(json)));
+		assertEquals(json.toString(), "{\"a\":{\"b\":[1,{\"c\":\"d\"}],\"e\":\"f\"},\"g\":\"h\",\"i\":[");
+	}
+
+	@Test
+	public void testYamlConcurrent() throws Exception {
+		String yaml = """
+            garter:
+               eyes: round
+            rattlesnake:
+              eyes: eliptical
+              lengths: [1, 2.5, 3]
+            """;
+		String expected = GsonUtils.yamlToJson(yaml);
+		var pool = Executors.newFixedThreadPool(8);
+		try {
+			var futures = new ArrayList<Future<String>>();
+			for (int i = 0; i < 200; i++) {
+				futures.add(pool.submit(() -> GsonUtils.yamlToJson(yaml)));
+			}
+			for (var future : futures) {
+				assertEquals(future.get(),expected);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test (expectedExceptions = org.yaml.snakeyaml.error.YAMLException.class)
+	public void testYamlMultipleDocuments() {
+		GsonUtils.yamlToJson("a: 1\n---\nb: 2\n");
+	}
+
+	@Test
+	public void testJsonToYaml() {
+		String json = "{\"name\":\"Tom & Jerry\",\"n\":\"123\",\"t\":\"true\",\"s\":\"null\",\"count\":3,"
+				+ "\"ratio\":2.5,\"flag\":false,\"list\":[1,null,\"x: y\",{\"a\":[]}],\"empty\":{}}";
+		String yaml = GsonUtils.jsonToYaml(json);
+		assertEquals(GsonUtils.yamlToJson(yaml),json);
+		assertEquals(GsonUtils.jsonToYaml("{\"a\":null}"),"a: null\n");
+	}
+
+	@Test
+	public void testToYaml() {
+		var bean = new OffsetDateTimeClass();
+		bean.dt = OffsetDateTime.parse("1988-04-08T08:20:45+07:00");
+		assertEquals(GsonUtils.toYaml(bean),"dt: '1988-04-08T08:20:45+07:00'\n");
+		assertEquals(GsonUtils.toYaml(new OffsetDateTimeClass()),"{}\n");
+		var decimal = new BigDecimalClass();
+		decimal.bd = new BigDecimal("3.14159265358979");
+		assertEquals(GsonUtils.yamlToJson(GsonUtils.toYaml(decimal)),GsonUtils.toJson(decimal));
+	}
+
 	@Test
 	public void testZonedDateTimeClass() {
 		var bean = new ZonedDateTimeClass();
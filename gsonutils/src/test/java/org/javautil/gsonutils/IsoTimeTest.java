@@ -0,0 +1,139 @@
+package org.javautil.gsonutils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.testng.annotations.Test;
+
+/**
+ * Checks the fast codecs against the JDK on random values from a fixed seed, a
+ * failure prints it. Other values are checked with -DisoTime.seed=&lt;seed&gt;.
+ */
+public class IsoTimeTest {
+	private static final int RUNS = 20_000;
+
+	private static final long SEED = Long.getLong("isoTime.seed", 20220415L);
+
+	private static final List<ZoneId> ZONES = new ArrayList<>();
+
+	static {
+		for (final var id : ZoneId.getAvailableZoneIds()) {
+			ZONES.add(ZoneId.of(id));
+		}
+		ZONES.sort((a, b) -> a.getId().compareTo(b.getId()));
+		ZONES.add(ZoneOffset.UTC);
+		ZONES.add(ZoneOffset.ofHoursMinutes(5, 30));
+		ZONES.add(ZoneOffset.ofHoursMinutesSeconds(-3, -12, -7));
+	}
+
+	private static LocalDateTime randomDateTime(Random random) {
+		final var year = random.nextInt(20) == 0 ? random.nextInt(30_000) - 10_000 : random.nextInt(10_000);
+		final var date = LocalDate.ofYearDay(year, 1).plusDays(random.nextInt(366) % LocalDate.ofYearDay(year, 1)
+				.lengthOfYear());
+		final var time = LocalTime.of(random.nextInt(24), random.nextInt(60),
+				random.nextBoolean() ? 0 : random.nextInt(60), randomNano(random));
+		return LocalDateTime.of(date, time);
+	}
+
+	private static int randomNano(Random random) {
+		switch (random.nextInt(4)) {
+		case 0:
+			return 0;
+		case 1:
+			return random.nextInt(1000) * 1_000_000;
+		case 2:
+			return random.nextInt(1_000_000) * 1_000;
+		default:
+			return random.nextInt(1_000_000_000);
+		}
+	}
+
+	private static <T> void check(T value, Function<T, String> format, Function<String, T> parse,
+			Function<String, T> jdkParse, long seed) {
+		final var text = format.apply(value);
+		assertEquals(text, value.toString(), "seed " + seed);
+		assertEquals(parse.apply(text), jdkParse.apply(text), "seed " + seed + " " + text);
+		assertEquals(parse.apply(text), value, "seed " + seed + " " + text);
+	}
+
+	@Test
+	public void testRoundTrip() {
+		final var seed = SEED;
+		final var random = new Random(seed);
+		for (int i = 0; i < RUNS; i++) {
+			final var dateTime = randomDateTime(random);
+			final var zone = ZONES.get(random.nextInt(ZONES.size()));
+			check(dateTime, IsoTime::format, IsoTime::parseLocalDateTime, LocalDateTime::parse, seed);
+			check(dateTime.toLocalDate(), IsoTime::format, IsoTime::parseLocalDate, LocalDate::parse, seed);
+			check(dateTime.toLocalTime(), IsoTime::format, IsoTime::parseLocalTime, LocalTime::parse, seed);
+			check(dateTime.toInstant(ZoneOffset.UTC), IsoTime::format, IsoTime::parseInstant, Instant::parse, seed);
+			check(dateTime.atZone(zone), IsoTime::format, IsoTime::parseZonedDateTime, ZonedDateTime::parse, seed);
+			check(dateTime.atZone(zone).toOffsetDateTime(), IsoTime::format, IsoTime::parseOffsetDateTime,
+					OffsetDateTime::parse, seed);
+		}
+	}
+
+	@Test
+	public void testOtherForms() {
+		// accepted by the JDK but not produced by toString
+		assertEquals(IsoTime.parseLocalTime("10:15:30.1"), LocalTime.parse("10:15:30.1"));
+		assertEquals(IsoTime.parseLocalTime("10:15:30."), LocalTime.parse("10:15:30."));
+		assertEquals(IsoTime.parseLocalTime("10:15:30.12345"), LocalTime.parse("10:15:30.12345"));
+		assertEquals(IsoTime.parseLocalDateTime("2022-04-15t10:15"), LocalDateTime.parse("2022-04-15t10:15"));
+		assertEquals(IsoTime.parseOffsetDateTime("2022-04-15T10:15:00+01:00:00"),
+				OffsetDateTime.parse("2022-04-15T10:15+01:00"));
+		assertEquals(IsoTime.parseInstant("2022-04-15T10:15:30+02:00"), Instant.parse("2022-04-15T08:15:30Z"));
+		assertEquals(IsoTime.parseZonedDateTime("2022-03-27T02:30+01:00[Europe/Paris]"),
+				ZonedDateTime.parse("2022-03-27T02:30+01:00[Europe/Paris]"));
+		assertEquals(IsoTime.parseZonedDateTime("2022-04-15T10:15Z[UTC]"),
+				ZonedDateTime.parse("2022-04-15T10:15Z[UTC]"));
+		assertEquals(IsoTime.parseZonedDateTime("+12022-04-15T10:15Z"), ZonedDateTime.parse("+12022-04-15T10:15Z"));
+	}
+
+	@Test
+	public void testInvalid() {
+		for (final var text : List.of("2022-02-30", "2022-13-01", "2022-4-15", "20220415", "")) {
+			assertRejected(() -> IsoTime.parseLocalDate(text), () -> LocalDate.parse(text));
+		}
+		for (final var text : List.of("24:00", "10:60", "10:15:61", "10:15:30.1234567890", "1015")) {
+			assertRejected(() -> IsoTime.parseLocalTime(text), () -> LocalTime.parse(text));
+		}
+		for (final var text : List.of("2022-04-15T10:15+19:00", "2022-04-15T10:15", "2022-04-15T10:15+01:60")) {
+			assertRejected(() -> IsoTime.parseOffsetDateTime(text), () -> OffsetDateTime.parse(text));
+		}
+		for (final var text : List.of("2022-04-15T10:15Z[Nowhere/City]", "2022-04-15T10:15Z[Europe/Paris")) {
+			assertRejected(() -> IsoTime.parseZonedDateTime(text), () -> ZonedDateTime.parse(text));
+		}
+		assertRejected(() -> IsoTime.parseInstant("2022-04-15T10:15Z"), () -> Instant.parse("2022-04-15T10:15Z"));
+	}
+
+	private static void assertRejected(Runnable fast, Runnable jdk) {
+		String expected = null;
+		try {
+			jdk.run();
+			fail("the JDK accepted it");
+		} catch (DateTimeException e) {
+			expected = e.getMessage();
+		}
+		try {
+			fast.run();
+			fail("accepted");
+		} catch (DateTimeException e) {
+			assertEquals(e.getMessage(), expected);
+		}
+	}
+}
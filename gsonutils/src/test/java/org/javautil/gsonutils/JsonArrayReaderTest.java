@@ -0,0 +1,85 @@
+package org.javautil.gsonutils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.javautil.gsonutils.JsonLinesTest.Event;
+import org.testng.annotations.Test;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+
+public class JsonArrayReaderTest {
+
+	@Test
+	public void testStream() {
+		var events = JsonLinesTest.events(5);
+		String json = GsonUtils.toJson(events);
+		try (var stream = GsonUtils.toBeansFromJsonArray(new StringReader(json), Event.class)) {
+			assertEquals(stream.collect(Collectors.toList()), events);
+		}
+		try (var stream = GsonUtils.toBeansFromJsonArray(new StringReader("[]"), Event.class)) {
+			assertEquals(stream.count(), 0);
+		}
+	}
+
+	@Test
+	public void testLazyAndClose() {
+		var closed = new boolean[1];
+		Reader reader = new StringReader("[{\"id\":1},{\"id\":2},{\"id\":3},") {
+			@Override
+			public void close() {
+				closed[0] = true;
+			}
+		};
+		try (var stream = GsonUtils.toBeansFromJsonArray(reader, Event.class)) {
+			// the array is truncated, only the elements read matter
+			assertEquals(stream.limit(2).map(e -> e.id).collect(Collectors.toList()), List.of(1L, 2L));
+		}
+		assertTrue(closed[0]);
+	}
+
+	@Test
+	public void testTypeToken() throws IOException {
+		Path path = Files.createTempFile("gsonutils", ".json");
+		try {
+			Files.writeString(path, "[{\"a\":1},{\"b\":2}]");
+			try (var stream = GsonUtils.toBeansFromJsonArray(path, new TypeToken<Map<String, Integer>>() {
+			})) {
+				assertEquals(stream.collect(Collectors.toList()), List.of(Map.of("a", 1), Map.of("b", 2)));
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test(expectedExceptions = JsonSyntaxException.class)
+	public void testNotAnArray() {
+		try (var stream = GsonUtils.toBeansFromJsonArray(new StringReader("{\"id\":1}"), Event.class)) {
+			stream.count();
+		}
+	}
+
+	@Test(expectedExceptions = JsonSyntaxException.class)
+	public void testEmptyDocument() {
+		try (var stream = GsonUtils.toBeansFromJsonArray(new StringReader(""), Event.class)) {
+			stream.count();
+		}
+	}
+
+	@Test(expectedExceptions = JsonSyntaxException.class)
+	public void testTrailing() {
+		try (var stream = GsonUtils.toBeansFromJsonArray(new StringReader("[] []"), Event.class)) {
+			stream.count();
+		}
+	}
+}
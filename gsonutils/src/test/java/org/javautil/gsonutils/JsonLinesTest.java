@@ -0,0 +1,192 @@
+package org.javautil.gsonutils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.Test;
+
+import com.google.gson.JsonSyntaxException;
+
+public class JsonLinesTest {
+
+	public static class Event {
+		long id;
+		String name;
+		Instant at;
+		BigDecimal amount;
+
+		Event() {
+		}
+
+		Event(long id) {
+			this.id = id;
+			this.name = "event " + id;
+			this.at = Instant.ofEpochSecond(1_650_000_000L + id, id);
+			this.amount = BigDecimal.valueOf(id, 2);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Event && GsonUtils.toJson(this).equals(GsonUtils.toJson(o));
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(id);
+		}
+	}
+
+	static List<Event> events(int count) {
+		final var events = new ArrayList<Event>();
+		for (int i = 0; i < count; i++) {
+			events.add(new Event(i));
+		}
+		return events;
+	}
+
+	@Test
+	public void testWriteRead() {
+		var events = events(3);
+		events.get(1).name = null;
+		var out = new StringWriter();
+		GsonUtils.toJsonLines(events, out);
+		String text = out.toString();
+		assertEquals(text.lines().count(), 3);
+		assertEquals(text.lines().findFirst().get(), GsonUtils.toJson(events.get(0)));
+		List<Event> read;
+		try (var stream = GsonUtils.toBeansFromJsonLines(new StringReader(text), Event.class)) {
+			read = stream.collect(Collectors.toList());
+		}
+		assertEquals(read, events);
+	}
+
+	@Test
+	public void testWithNulls() {
+		var event = new Event(1);
+		event.name = null;
+		var out = new StringWriter();
+		GsonUtils.toJsonLinesWithNulls(List.of(event), out);
+		assertEquals(out.toString(), GsonUtils.toJsonWithNulls(event) + "\n");
+	}
+
+	@Test
+	public void testPathAppend() throws IOException {
+		Path path = Files.createTempFile("gsonutils", ".ndjson");
+		try {
+			GsonUtils.toJsonLines(events(2), path);
+			try (var writer = new JsonLinesWriter(path, StandardOpenOption.APPEND)) {
+				writer.write(new Event(2));
+			}
+			try (var stream = GsonUtils.toBeansFromJsonLines(path, Event.class)) {
+				assertEquals(stream.collect(Collectors.toList()), events(3));
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testParallel() throws IOException {
+		Path path = Files.createTempFile("gsonutils", ".ndjson");
+		try {
+			var events = events(10_000);
+			GsonUtils.toJsonLines(events, path);
+			var ordered = new ArrayList<Event>();
+			new ParallelJsonLinesDecoder<>(Event.class).setParallelism(4).setChunkSize(4096).setMaxChunksInFlight(3)
+					.decode(path, ordered::add);
+			assertEquals(ordered, events);
+
+			var unordered = new ArrayList<Event>();
+			new ParallelJsonLinesDecoder<>(Event.class).setParallelism(4).setChunkSize(100).setOrdered(false)
+					.decode(path, unordered::add);
+			unordered.sort(Comparator.comparingLong(e -> e.id));
+			assertEquals(unordered, events);
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testParallelUnorderedReleasesRecords() throws IOException {
+		Path path = Files.createTempFile("gsonutils", ".ndjson");
+		try {
+			GsonUtils.toJsonLines(events(2_000), path);
+			var first = new ArrayList<WeakReference<Event>>();
+			var consumed = new int[1];
+			var released = new boolean[1];
+			new ParallelJsonLinesDecoder<>(Event.class).setParallelism(2).setChunkSize(1024).setMaxChunksInFlight(2)
+					.setOrdered(false).decode(path, e -> {
+						if (first.isEmpty()) {
+							first.add(new WeakReference<>(e));
+						} else if (++consumed[0] == 1_500) {
+							// the chunk of the first record was consumed long ago
+							for (int i = 0; i < 10 && first.get(0).get() != null; i++) {
+								System.gc();
+							}
+							released[0] = first.get(0).get() == null;
+						}
+					});
+			assertTrue(released[0]);
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test(expectedExceptions = JsonSyntaxException.class)
+	public void testParallelMalformed() throws IOException {
+		Path path = Files.createTempFile("gsonutils", ".ndjson");
+		try {
+			GsonUtils.toJsonLines(events(100), path);
+			Files.writeString(path, "{\"id\":[}\n", StandardOpenOption.APPEND);
+			new ParallelJsonLinesDecoder<>(Event.class).setChunkSize(256).decode(path, e -> {
+			});
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testMalformedBetweenRecords() throws IOException {
+		Path path = Files.createTempFile("gsonutils", ".ndjson");
+		try {
+			GsonUtils.toJsonLines(events(100), path);
+			Files.writeString(path, "}\n", StandardOpenOption.APPEND);
+			assertThrows(JsonSyntaxException.class, () -> {
+				try (var reader = new JsonLinesReader<>(path, Event.class)) {
+					reader.forEachRemaining(e -> {
+					});
+				}
+			});
+			assertThrows(JsonSyntaxException.class,
+					() -> new ParallelJsonLinesDecoder<>(Event.class).setChunkSize(256).decode(path, e -> {
+					}));
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testIterator() throws IOException {
+		try (var reader = new JsonLinesReader<>(new StringReader("\n{\"id\":7}\n\n{\"id\":8}\n"), Event.class)) {
+			assertEquals(reader.next().id, 7);
+			assertEquals(reader.next().id, 8);
+			assertFalse(reader.hasNext());
+		}
+	}
+}
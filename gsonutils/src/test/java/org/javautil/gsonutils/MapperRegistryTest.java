@@ -0,0 +1,83 @@
+package org.javautil.gsonutils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+public class MapperRegistryTest {
+
+	static class Money {
+		long cents;
+
+		Money(long cents) {
+			this.cents = cents;
+		}
+	}
+
+	static class MoneyAdapter extends TypeAdapter<Money> {
+		@Override
+		public void write(JsonWriter out, Money value) throws IOException {
+			out.value(value.cents / 100 + "." + value.cents % 100);
+		}
+
+		@Override
+		public Money read(JsonReader in) throws IOException {
+			return new Money(Math.round(Double.parseDouble(in.nextString()) * 100));
+		}
+	}
+
+	@Test
+	public void testOptions() {
+		var registry = new MapperRegistry();
+		var map = new LinkedHashMap<String, Object>();
+		map.put("a", "<b>");
+		map.put("n", null);
+		map.put("d", Double.NaN);
+		assertEquals(registry.get(MapperOption.SPECIAL_FLOATS).toJson(map), "{\"a\":\"<b>\",\"d\":NaN}");
+		assertEquals(registry.get(MapperOption.SPECIAL_FLOATS, MapperOption.NULLS, MapperOption.ESCAPE_HTML).toJson(map),
+				"{\"a\":\"\\u003cb\\u003e\",\"n\":null,\"d\":NaN}");
+		map.remove("d");
+		assertEquals(registry.get(MapperOption.PRETTY).toJson(map), "{\n  \"a\": \"<b>\"\n}");
+		assertSame(registry.get(MapperOption.PRETTY, MapperOption.NULLS),
+				registry.get(EnumSet.of(MapperOption.NULLS, MapperOption.PRETTY)));
+		assertSame(registry.get(MapperOption.COMPACT), registry.get());
+		assertSame(GsonUtils.mapper(), GsonUtils.mapper());
+		assertEquals(GsonUtils.toJson(List.of(Map.of("a", 1), Map.of("b", 2)), MapperOption.COMPACT),
+				GsonUtils.toJsonCompact(List.of(Map.of("a", 1), Map.of("b", 2))));
+		assertEquals(GsonUtils.toJson(map, MapperOption.COMPACT, MapperOption.PRETTY), GsonUtils.toPrettyJson(map));
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testDeprecatedFields() {
+		var map = Map.of("a", "<b>");
+		assertEquals(GsonUtils.LegacyMappers.mapper.toJson(map), GsonUtils.toJson(map));
+		assertEquals(GsonUtils.LegacyMappers.htmlMapper.toJson(map), GsonUtils.toHtmlJson(map));
+		assertEquals(GsonUtils.LegacyMappers.prettyMapper.toJson(map), GsonUtils.toPrettyJson(map));
+		assertSame(GsonUtils.LegacyMappers.nullPrettyMapper, GsonUtils.registry.get(MapperOption.NULLS, MapperOption.PRETTY));
+	}
+
+	@Test
+	public void testRegister() {
+		var registry = new MapperRegistry();
+		var before = registry.get();
+		registry.registerTypeAdapter(Money.class, new MoneyAdapter());
+		assertNotSame(registry.get(), before);
+		assertEquals(registry.get().toJson(new Money(1234)), "\"12.34\"");
+		assertEquals(registry.get(MapperOption.PRETTY, MapperOption.NULLS).toJson(new Money(1234)), "\"12.34\"");
+		assertEquals(registry.get(MapperOption.ESCAPE_HTML).fromJson("\"0.5\"", Money.class).cents, 50);
+		assertEquals(registry.get().toJson(new java.math.BigDecimal("1.10")), "\"1.10\"");
+	}
+}
@@ -0,0 +1,114 @@
+package org.javautil.gsonutils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+public class RecordTypeAdapterFactoryTest {
+
+	record Line(int number, @SerializedName(value = "qty", alternate = "quantity") BigDecimal quantity,
+			Object note) {
+	}
+
+	record Order(String id, LocalDate due, boolean rush, List<Line> lines) {
+	}
+
+	record Page<T>(long total, List<T> items) {
+	}
+
+	record Positive(int value) {
+		Positive {
+			if (value <= 0) {
+				throw new IllegalArgumentException("not positive " + value);
+			}
+		}
+	}
+
+	static class HexAdapter extends TypeAdapter<Integer> {
+		@Override
+		public void write(JsonWriter out, Integer value) throws IOException {
+			out.value(Integer.toHexString(value));
+		}
+
+		@Override
+		public Integer read(JsonReader in) throws IOException {
+			return Integer.parseInt(in.nextString(), 16);
+		}
+	}
+
+	static class UpperSerializer implements JsonSerializer<String> {
+		@Override
+		public JsonElement serialize(String src, Type typeOfSrc, JsonSerializationContext context) {
+			return new JsonPrimitive(src.toUpperCase());
+		}
+	}
+
+	record Flags(@JsonAdapter(HexAdapter.class) int mask, @JsonAdapter(UpperSerializer.class) String label,
+			@JsonAdapter(HexAdapter.class) Integer other) {
+	}
+
+	static Order order() {
+		return new Order("o-1", LocalDate.of(2022, 4, 15), true,
+				List.of(new Line(1, new BigDecimal("2.50"), "fragile"), new Line(2, BigDecimal.ONE, null)));
+	}
+
+	@Test
+	public void testRoundTrip() {
+		var order = order();
+		var json = GsonUtils.toJson(order);
+		assertEquals(json, "{\"id\":\"o-1\",\"due\":\"2022-04-15\",\"rush\":true,\"lines\":["
+				+ "{\"number\":1,\"qty\":\"2.50\",\"note\":\"fragile\"},{\"number\":2,\"qty\":\"1\"}]}");
+		assertEquals(GsonUtils.toBeanFromJson(json, Order.class), order);
+		assertEquals(GsonUtils.toBeanFromJson(GsonUtils.toPrettyJsonWithNulls(order), Order.class), order);
+	}
+
+	@Test
+	public void testMissingAndAlternate() {
+		var line = GsonUtils.toBeanFromJson("{\"quantity\":\"3\",\"unknown\":{\"a\":[1]},\"number\":null}",
+				Line.class);
+		assertEquals(line, new Line(0, new BigDecimal("3"), null));
+		assertNull(GsonUtils.toBeanFromJson("null", Line.class));
+	}
+
+	@Test
+	public void testGeneric() {
+		var page = new Page<>(1, List.of(new Line(1, BigDecimal.TEN, "note")));
+		var json = GsonUtils.toJson(page);
+		Page<Line> read = GsonUtils.mapper().fromJson(json, new TypeToken<Page<Line>>() {
+		}.getType());
+		assertEquals(read.items().get(0).quantity(), BigDecimal.TEN);
+		assertEquals(GsonUtils.toJson(read), json);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testCanonicalConstructorValidates() {
+		GsonUtils.toBeanFromJson("{\"value\":0}", Positive.class);
+	}
+
+	@Test
+	public void testJsonAdapter() {
+		var flags = new Flags(255, "low", null);
+		assertEquals(GsonUtils.toJson(flags), "{\"mask\":\"ff\",\"label\":\"LOW\"}");
+		assertEquals(GsonUtils.toJsonWithNulls(flags), "{\"mask\":\"ff\",\"label\":\"LOW\",\"other\":null}");
+		assertEquals(GsonUtils.toBeanFromJson("{\"mask\":\"1f\",\"label\":\"low\",\"other\":null}", Flags.class),
+				new Flags(31, "low", null));
+	}
+}